@@ -0,0 +1,71 @@
+package org.htmx;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Decodificação de um PositionReport: árvore JsonNode (caminho antigo) x AisDecoder em streaming.
+// Rode com "-prof gc" para ver gc.alloc.rate.norm (bytes alocados por mensagem).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AisDecodeBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AisDecoder decoder = new AisDecoder(mapper.getFactory());
+    private final PositionReport report = new PositionReport();
+    private Buffer frame;
+
+    @Setup
+    public void setup() {
+        frame = Buffer.buffer(AisSamples.POSITION_REPORT_BYTES);
+    }
+
+    // Caminho antigo do ShipTrackerClient: String + readTree + path()
+    @Benchmark
+    public void treeDecode(Blackhole bh) throws IOException {
+        JsonNode root = mapper.readTree(frame.toString(StandardCharsets.UTF_8));
+        if (!"PositionReport".equals(root.path("MessageType").asText())) return;
+
+        JsonNode report = root.path("Message").path("PositionReport");
+        JsonNode meta = root.path("MetaData");
+
+        String name = meta.path("ShipName").asText("DESCONHECIDO").trim();
+        if (name.isEmpty()) name = "DESCONHECIDO";
+        String destination = meta.path("Destination").asText("").trim();
+        if (destination.isEmpty()) destination = "Não informado";
+
+        bh.consume(name);
+        bh.consume(String.valueOf(report.path("UserID").asInt()));
+        bh.consume(report.path("Latitude").asDouble());
+        bh.consume(report.path("Longitude").asDouble());
+        bh.consume(meta.path("Flag").asText("🏳️"));
+        bh.consume(report.path("Sog").asDouble());
+        bh.consume(report.path("TrueHeading").asInt());
+        bh.consume(meta.path("ShipType").asInt());
+        bh.consume(destination);
+    }
+
+    @Benchmark
+    public void streamingDecode(Blackhole bh) throws IOException {
+        if (decoder.decode(frame, report)) bh.consume(report);
+    }
+}
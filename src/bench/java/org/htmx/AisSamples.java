@@ -0,0 +1,20 @@
+package org.htmx;
+
+import java.nio.charset.StandardCharsets;
+
+// Frames de exemplo no formato da AISStream, usados pelos benchmarks
+final class AisSamples {
+
+    static final String POSITION_REPORT = """
+            {"Message":{"PositionReport":{"Cog":218.4,"CommunicationState":59916,"Latitude":-23.98412,\
+            "Longitude":-46.29871,"MessageID":1,"NavigationalStatus":0,"PositionAccuracy":true,"Raim":false,\
+            "RateOfTurn":0,"RepeatIndicator":0,"Sog":11.3,"Spare":0,"SpecialManoeuvreIndicator":0,"Timestamp":41,\
+            "TrueHeading":217,"UserID":710012345,"Valid":true}},"MessageType":"PositionReport",\
+            "MetaData":{"MMSI":710012345,"MMSI_String":710012345,"ShipName":"NAVEGADOR SANTISTA   ",\
+            "Flag":"🇧🇷","ShipType":71,"Destination":"SANTOS","latitude":-23.98412,"longitude":-46.29871,\
+            "time_utc":"2026-10-17 12:00:41.123456789 +0000 UTC"}}""";
+
+    static final byte[] POSITION_REPORT_BYTES = POSITION_REPORT.getBytes(StandardCharsets.UTF_8);
+
+    private AisSamples() {}
+}
@@ -0,0 +1,188 @@
+package org.htmx;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latência dos comandos do chat com muitos usuários: sobe a aplicação (simulador ligado, para ter navios),
+// conecta N usuários no /chat-ws e cada um manda comandos pesados (/navios ...) em sequência, com uma pausa
+// aleatória entre eles. Roda uma vez por modo de execução dos callbacks:
+//   virtual  @RunOnVirtualThread (o padrão)
+//   worker   quarkus.virtual-threads.enabled=false: os mesmos métodos voltam para o worker pool (modelo anterior)
+//
+//   ./mvnw package -DskipTests
+//   ./mvnw -Pbench test-compile exec:exec -Dbench.main=org.htmx.ChatLoadHarness \
+//       -Djmh.args="target/quarkus-app/quarkus-run.jar 1000 30"
+//
+// Argumentos: <jar> [usuários=1000] [segundos=30] [pausa média ms=1000] [modos=virtual,worker] [porta=18090]
+public class ChatLoadHarness {
+
+    private static final String[] COMMANDS = {
+            "/navios", "/navios carga", "/navios perto santos 50km", "/navios proximos rio 5", "/navios carga santos pagina 2"
+    };
+
+    private static final long REPLY_TIMEOUT_MS = 10_000;
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("uso: ChatLoadHarness <jar> [usuários=1000] [segundos=30] [pausa média ms=1000] [modos=virtual,worker] [porta=18090]");
+            System.exit(2);
+        }
+        Path jar = Path.of(args[0]);
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int thinkMs = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        String[] modes = (args.length > 4 ? args[4] : "virtual,worker").split(",");
+        int port = args.length > 5 ? Integer.parseInt(args[5]) : 18090;
+
+        System.out.println("modo    | usuários | comandos/s |  p50 ms |  p99 ms | p99.9 ms | ocupado | sem resposta");
+        for (String mode : modes) {
+            Result r = run(jar, mode.trim(), users, seconds, thinkMs, port);
+            System.out.printf(Locale.ROOT, "%-7s | %8d | %10.0f | %7.1f | %7.1f | %8.1f | %7d | %12d%n",
+                    mode.trim(), users, r.commandsPerSecond, r.p50, r.p99, r.p999, r.busy, r.timeouts);
+        }
+    }
+
+    record Result(double commandsPerSecond, double p50, double p99, double p999, long busy, long timeouts) {}
+
+    private static Result run(Path jar, String mode, int users, int seconds, int thinkMs, int port) throws Exception {
+        Path log = Files.createTempFile("chat-load-" + mode + "-", ".log");
+        Process process = new ProcessBuilder("java",
+                "-Dquarkus.http.port=" + port,
+                "-Dquarkus.profile=sim",
+                "-Dquarkus.virtual-threads.enabled=" + "virtual".equals(mode),
+                // Todos na mesma sala: o teto por sala não pode recusar os usuários do teste
+                "-Dchat.room.max-connections=" + (users + 100),
+                "-Djournal.enabled=false",
+                "-jar", jar.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+
+        List<User> connected = new ArrayList<>(users);
+        List<Thread> loops = new ArrayList<>(users);
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        LongAdder busy = new LongAdder();
+        LongAdder timeouts = new LongAdder();
+        try {
+            awaitReady(port);
+            // O simulador precisa de alguns segundos para encher a tabela; sem navios os comandos são triviais
+            TimeUnit.SECONDS.sleep(10);
+
+            URI uri = URI.create("ws://localhost:" + port + "/chat-ws");
+            for (int i = 0; i < users; i++) {
+                User user = new User();
+                user.socket = HTTP.newWebSocketBuilder().buildAsync(uri, user).get(10, TimeUnit.SECONDS);
+                user.socket.sendText("{\"type\":\"LOGIN\",\"value\":\"usuario" + i + "\"}", true);
+                connected.add(user);
+            }
+            // Aquecimento: os "entrou na sala" de todo mundo chegam a todo mundo, e o JIT esquenta
+            TimeUnit.SECONDS.sleep(5);
+
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            for (User user : connected) {
+                loops.add(Thread.ofVirtual().start(() -> user.loop(end, thinkMs, latencies, busy, timeouts)));
+            }
+            for (Thread loop : loops) loop.join();
+
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            return new Result(sorted.length / (double) seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999), busy.sum(), timeouts.sum());
+        } finally {
+            for (User user : connected) user.socket.abort();
+            process.destroy();
+            if (!process.waitFor(15, TimeUnit.SECONDS)) process.destroyForcibly();
+            System.err.println("log do modo " + mode + " em " + log);
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) return Double.NaN;
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    private static void awaitReady(int port) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/q/metrics")).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            try {
+                if (HTTP.send(request, HttpResponse.BodyHandlers.ofString()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // ainda subindo
+            }
+            TimeUnit.MILLISECONDS.sleep(250);
+        }
+        throw new IllegalStateException("aplicação na porta " + port + " não subiu em 60 s");
+    }
+
+    // Um usuário: um comando por vez, espera a resposta (a próxima mensagem de sistema só para ele), pausa
+    private static final class User implements WebSocket.Listener {
+        WebSocket socket;
+        private final StringBuilder partial = new StringBuilder();
+        private final AtomicReference<CompletableFuture<String>> pending = new AtomicReference<>();
+
+        void loop(long end, int thinkMs, ConcurrentLinkedQueue<Long> latencies, LongAdder busy, LongAdder timeouts) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try {
+                // Espalha o primeiro comando de cada usuário pela primeira pausa
+                Thread.sleep(random.nextInt(Math.max(1, thinkMs)));
+                while (System.nanoTime() < end) {
+                    String command = COMMANDS[random.nextInt(COMMANDS.length)];
+                    CompletableFuture<String> reply = new CompletableFuture<>();
+                    pending.set(reply);
+                    long start = System.nanoTime();
+                    socket.sendText("{\"type\":\"MSG\",\"value\":\"" + command + "\"}", true);
+                    try {
+                        String html = reply.get(REPLY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                        if (html.contains("Servidor ocupado")) busy.increment();
+                        else latencies.add(System.nanoTime() - start);
+                    } catch (TimeoutException e) {
+                        timeouts.increment();
+                    }
+                    pending.set(null);
+                    Thread.sleep(thinkMs / 2 + random.nextInt(Math.max(1, thinkMs)));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                timeouts.increment();
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                String html = partial.toString();
+                partial.setLength(0);
+                // Entradas e saídas de outros usuários também são mensagens de sistema, mas vão para a sala toda
+                CompletableFuture<String> reply = pending.get();
+                if (reply != null && html.contains("sys-msg") && !html.contains("entrou na sala") && !html.contains(" saiu")) {
+                    reply.complete(html);
+                }
+            }
+            webSocket.request(1);
+            return CompletableFuture.completedStage(null);
+        }
+    }
+}
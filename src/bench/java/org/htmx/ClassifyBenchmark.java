@@ -0,0 +1,72 @@
+package org.htmx;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Classificação por relatório: tipo do navio, direção cardeal e localização (geocodificação reversa).
+// As entradas variam a cada chamada para o JIT não especializar num valor só.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassifyBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final int[] typeCodes = new int[SAMPLES];
+    private final int[] headings = new int[SAMPLES];
+    private final double[] lats = new double[SAMPLES];
+    private final double[] lons = new double[SAMPLES];
+    private int i;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int n = 0; n < SAMPLES; n++) {
+            typeCodes[n] = random.nextInt(100);
+            headings[n] = random.nextInt(10) == 0 ? 511 : random.nextInt(360);
+            lats[n] = -34 + random.nextDouble() * 38;
+            lons[n] = -52 + random.nextDouble() * 20;
+        }
+    }
+
+    @Benchmark
+    public String shipType() {
+        return ShipTrackerClient.getShipType(typeCodes[i++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public String direction() {
+        return ShipTrackerClient.getDirection(headings[i++ & (SAMPLES - 1)]);
+    }
+
+    // Costa inteira: a maioria das consultas cai em célula já resolvida no cache
+    @Benchmark
+    public String reverseGeocode() {
+        int n = i++ & (SAMPLES - 1);
+        return ReverseGeocoder.locate(lats[n], lons[n]);
+    }
+
+    // As três juntas, como no consumidor da ingestão
+    @Benchmark
+    public void classifyReport(Blackhole bh) {
+        int n = i++ & (SAMPLES - 1);
+        bh.consume(ShipTrackerClient.getShipType(typeCodes[n]));
+        bh.consume(ShipTrackerClient.getDirection(headings[n]));
+        bh.consume(ReverseGeocoder.locate(lats[n], lons[n]));
+    }
+}
@@ -0,0 +1,175 @@
+package org.htmx;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Escalabilidade horizontal em localhost: sobe 1, 2, 4... processos da aplicação em cluster (multicast),
+// o primeiro como líder alimentado pelo simulador, e pendura o mesmo número de terminais do radar em cada nó.
+// Se o fan-out escala com os nós, frames/s por terminal fica constante e o total cresce linearmente.
+//
+//   ./mvnw package -DskipTests
+//   ./mvnw -Pbench test-compile exec:exec -Dbench.main=org.htmx.ClusterScaleHarness \
+//       -Djmh.args="target/quarkus-app/quarkus-run.jar 1,2,4 300 20"
+//
+// Argumentos: <jar> [nós=1,2,4] [terminais por nó=300] [segundos=20] [porta base=18080]
+public class ClusterScaleHarness {
+
+    private static final Pattern DROPPED = Pattern.compile("^fanout_frames_dropped_total\\{[^}]*group=\"radar\"[^}]*} ([0-9.eE+-]+)$", Pattern.MULTILINE);
+    private static final Pattern SENT = Pattern.compile("^cluster_bus_sent_total(?:\\{[^}]*})? ([0-9.eE+-]+)$", Pattern.MULTILINE);
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("uso: ClusterScaleHarness <jar> [nós=1,2,4] [terminais por nó=300] [segundos=20] [porta base=18080]");
+            System.exit(2);
+        }
+        Path jar = Path.of(args[0]);
+        String[] nodeCounts = (args.length > 1 ? args[1] : "1,2,4").split(",");
+        int viewersPerNode = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int basePort = args.length > 4 ? Integer.parseInt(args[4]) : 18080;
+
+        System.out.println("nós | terminais | frames/s total | frames/s por terminal | MB/s | descartados | eficiência");
+        double baselinePerNode = 0;
+        int run = 0;
+        for (String count : nodeCounts) {
+            int nodes = Integer.parseInt(count.trim());
+            Result result = runCluster(jar, nodes, viewersPerNode, seconds, basePort, run++);
+            double perNode = result.framesPerSecond / nodes;
+            if (baselinePerNode == 0) baselinePerNode = perNode;
+            System.out.printf(Locale.ROOT, "%3d | %9d | %14.0f | %21.2f | %4.1f | %11d | %9.0f%%%n",
+                    nodes, result.viewers, result.framesPerSecond, result.framesPerSecond / result.viewers,
+                    result.bytesPerSecond / 1e6, result.dropped, 100 * perNode / baselinePerNode);
+        }
+    }
+
+    record Result(int viewers, double framesPerSecond, double bytesPerSecond, long dropped) {}
+
+    private static Result runCluster(Path jar, int nodes, int viewersPerNode, int seconds, int basePort, int run) throws Exception {
+        Path work = Files.createTempDirectory("cluster-" + nodes + "-");
+        // Porta de multicast diferente a cada rodada: nós atrasados de uma rodada não vazam para a próxima
+        int multicastPort = 45600 + run;
+        List<Process> processes = new ArrayList<>();
+        List<WebSocket> sockets = new ArrayList<>();
+        LongAdder frames = new LongAdder();
+        LongAdder bytes = new LongAdder();
+
+        try {
+            for (int i = 0; i < nodes; i++) {
+                int port = basePort + i;
+                processes.add(new ProcessBuilder("java",
+                        "-Dquarkus.http.port=" + port,
+                        "-Dquarkus.profile=sim",
+                        "-Dsimulator.rate-multiplier=10",
+                        "-Dcluster.transport=MULTICAST",
+                        "-Dcluster.multicast.port=" + multicastPort,
+                        "-Dcluster.secret=cluster-scale-harness",
+                        "-Dcluster.leader-lock=" + work.resolve("ingest.lock"),
+                        "-Djournal.enabled=false",
+                        "-Dhistory.enabled=false",
+                        "-jar", jar.toString())
+                        .redirectErrorStream(true)
+                        .redirectOutput(work.resolve("node-" + i + ".log").toFile())
+                        .start());
+                // O primeiro a subir pega o lock: o líder é sempre o nó 0
+                awaitReady(port, i == 0);
+            }
+
+            for (int i = 0; i < nodes; i++) {
+                URI uri = URI.create("ws://localhost:" + (basePort + i) + "/ships-ws");
+                for (int v = 0; v < viewersPerNode; v++) {
+                    sockets.add(HTTP.newWebSocketBuilder().buildAsync(uri, new Counting(frames, bytes)).get(10, TimeUnit.SECONDS));
+                }
+            }
+
+            // Aquecimento: snapshots iniciais e JIT fora da medição
+            TimeUnit.SECONDS.sleep(5);
+            long droppedBefore = dropped(basePort, nodes);
+            frames.reset();
+            bytes.reset();
+            long start = System.nanoTime();
+            TimeUnit.SECONDS.sleep(seconds);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            return new Result(sockets.size(), frames.sum() / elapsed, bytes.sum() / elapsed, dropped(basePort, nodes) - droppedBefore);
+        } finally {
+            for (WebSocket socket : sockets) socket.abort();
+            for (Process process : processes) process.destroy();
+            for (Process process : processes) {
+                if (!process.waitFor(15, TimeUnit.SECONDS)) process.destroyForcibly();
+            }
+            System.err.println("logs dos nós em " + work);
+        }
+    }
+
+    private static void awaitReady(int port, boolean leader) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/q/metrics")).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpResponse<String> response = HTTP.send(request, HttpResponse.BodyHandlers.ofString());
+                // No líder, espera o simulador começar a publicar no cluster
+                if (response.statusCode() == 200 && (!leader || published(response.body()) > 0)) return;
+            } catch (IOException e) {
+                // ainda subindo
+            }
+            TimeUnit.MILLISECONDS.sleep(250);
+        }
+        throw new IllegalStateException("nó na porta " + port + " não subiu em 60 s");
+    }
+
+    private static long dropped(int basePort, int nodes) throws InterruptedException {
+        long total = 0;
+        for (int i = 0; i < nodes; i++) {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + (basePort + i) + "/q/metrics")).build();
+                Matcher matcher = DROPPED.matcher(HTTP.send(request, HttpResponse.BodyHandlers.ofString()).body());
+                while (matcher.find()) total += (long) Double.parseDouble(matcher.group(1));
+            } catch (IOException e) {
+                // nó fora do ar: não conta
+            }
+        }
+        return total;
+    }
+
+    private static long published(String metrics) {
+        Matcher matcher = SENT.matcher(metrics);
+        return matcher.find() ? (long) Double.parseDouble(matcher.group(1)) : 0;
+    }
+
+    // Conta frames completos (um frame de texto pode chegar em partes) e bytes recebidos
+    private static final class Counting implements WebSocket.Listener {
+        private final LongAdder frames;
+        private final LongAdder bytes;
+
+        Counting(LongAdder frames, LongAdder bytes) {
+            this.frames = frames;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            bytes.add(data.length());
+            if (last) frames.increment();
+            webSocket.request(1);
+            return CompletableFuture.completedStage(null);
+        }
+    }
+}
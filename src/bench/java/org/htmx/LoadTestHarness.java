@@ -0,0 +1,439 @@
+package org.htmx;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.ServerWebSocket;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Latência ponta a ponta (relatório AIS chegando do upstream -> fragmento no navegador) e como ela muda com
+// o número de clientes. O próprio harness faz o papel da AISStream: um servidor WebSocket Vert.x local que
+// injeta PositionReports sintéticos numa taxa fixa, cada um com um número de sequência no destino ("LT123").
+// A aplicação (sem simulador, journal nem histórico) consome esse upstream; N terminais no /ships-ws medem
+// quando o destino chega no fragmento, e N usuários no /chat-ws medem mensagens de chat numeradas ("lt-123")
+// de ponta a ponta. Por passo: percentis das duas latências, vazão, e heap/GC lidos do /q/metrics.
+// A latência do radar inclui a espera pelo tick (radar.flush-interval-ms).
+//
+//   ./mvnw package -DskipTests
+//   ./mvnw -Pbench,loadtest test-compile exec:exec \
+//       -Djmh.args="target/quarkus-app/quarkus-run.jar 100,500,1000 2000 20"
+//
+// Argumentos: <jar> [clientes por passo=100,500,1000] [relatórios/s=2000] [segundos por passo=20]
+//             [navios=150] [mensagens de chat/s=5] [porta=18120] [porta do upstream=18121]
+// "entregue" = entregas / (relatórios × terminais): abaixo de 100% porque relatórios do mesmo navio no mesmo
+// tick viram um só. Com mais navios que radar.max-entries-per-viewer os terminais não veem a frota inteira.
+public class LoadTestHarness {
+
+    private static final DateTimeFormatter TIME_UTC = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSSSS").withZone(ZoneOffset.UTC);
+
+    // Destino de um relatório injetado, no fragmento novo (<span id="ship-X-dst">) ou no delta (... hx-swap-oob)
+    private static final Pattern RADAR_SEQ = Pattern.compile("-dst\"[^>]*>LT(\\d+)<");
+    private static final Pattern CHAT_SEQ = Pattern.compile("lt-(\\d+)");
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("uso: LoadTestHarness <jar> [clientes por passo=100,500,1000] [relatórios/s=2000] [segundos por passo=20]"
+                    + " [navios=150] [mensagens de chat/s=5] [porta=18120] [porta do upstream=18121]");
+            System.exit(2);
+        }
+        Path jar = Path.of(args[0]);
+        int[] steps = Arrays.stream((args.length > 1 ? args[1] : "100,500,1000").split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        int rate = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int fleet = args.length > 4 ? Integer.parseInt(args[4]) : 150;
+        int chatRate = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+        int port = args.length > 6 ? Integer.parseInt(args[6]) : 18120;
+        int upstreamPort = args.length > 7 ? Integer.parseInt(args[7]) : 18121;
+
+        Vertx vertx = Vertx.vertx();
+        Upstream upstream = new Upstream(vertx, fleet, rate);
+        vertx.createHttpServer().webSocketHandler(upstream::accept).listen(upstreamPort)
+                .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        Path log = Files.createTempFile("load-test-", ".log");
+        Process process = new ProcessBuilder("java",
+                "-Dquarkus.http.port=" + port,
+                "-Daisstream.upstream-uri=ws://localhost:" + upstreamPort,
+                "-Daisstream.api.key=loadtest",
+                // Uma conexão só: cada relatório entra uma vez (com duas faixas o deduplicador descartaria a cópia)
+                "-Daisstream.shards=1",
+                // Todos os usuários na mesma sala
+                "-Dchat.room.max-connections=" + (Arrays.stream(steps).max().orElse(0) + 100),
+                "-Djournal.enabled=false",
+                "-Dhistory.enabled=false",
+                "-jar", jar.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+
+        try {
+            awaitReady(port);
+            upstream.awaitSubscription();
+            // A frota inteira entra na tabela antes do primeiro passo
+            TimeUnit.SECONDS.sleep(5);
+
+            System.out.println("clientes | relatórios/s | entregas/s | entregue | radar p50 ms |  p99 ms | p99.9 ms"
+                    + " | chat/s | chat p50 ms |  p99 ms | p99.9 ms | heap máx MB | GCs | GC ms | pausa máx ms | pulados");
+            for (int clients : steps) {
+                step(port, upstream, clients, seconds, chatRate);
+            }
+        } finally {
+            upstream.stop();
+            process.destroy();
+            if (!process.waitFor(15, TimeUnit.SECONDS)) process.destroyForcibly();
+            vertx.close();
+            System.err.println("log da aplicação em " + log);
+        }
+    }
+
+    private static void step(int port, Upstream upstream, int clients, int seconds, int chatRate) throws Exception {
+        Histogram radarLatency = new Histogram();
+        Histogram chatLatency = new Histogram();
+        ChatSequence chat = new ChatSequence();
+        List<WebSocket> terminals = new ArrayList<>(clients);
+        List<WebSocket> users = new ArrayList<>(clients);
+        try {
+            for (int i = 0; i < clients; i++) {
+                terminals.add(HTTP.newWebSocketBuilder()
+                        .buildAsync(URI.create("ws://localhost:" + port + "/ships-ws"), new RadarClient(upstream, radarLatency))
+                        .get(10, TimeUnit.SECONDS));
+                WebSocket user = HTTP.newWebSocketBuilder()
+                        .buildAsync(URI.create("ws://localhost:" + port + "/chat-ws"), new ChatClient(chat, chatLatency))
+                        .get(10, TimeUnit.SECONDS);
+                user.sendText("{\"type\":\"LOGIN\",\"value\":\"carga" + i + "\"}", true).get(10, TimeUnit.SECONDS);
+                users.add(user);
+            }
+            // Snapshots, histórico do chat e "entrou na sala" de todo mundo ficam fora da medição
+            TimeUnit.SECONDS.sleep(5);
+
+            Metrics before = Metrics.read(port);
+            long injectedFrom = upstream.sequence.get();
+            long skippedFrom = upstream.skippedTicks.sum();
+            radarLatency.reset();
+            chatLatency.reset();
+            // Relatórios e mensagens anteriores ao passo (snapshot, histórico) não contam
+            upstream.measureFrom = injectedFrom;
+            chat.measureFrom = chat.sequence.get();
+
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            Thread speaker = Thread.ofVirtual().start(() -> speak(users, chat, chatRate, end));
+            double heapMax = 0, pauseMax = 0;
+            while (System.nanoTime() < end) {
+                TimeUnit.SECONDS.sleep(1);
+                Metrics sample = Metrics.read(port);
+                heapMax = Math.max(heapMax, sample.heapBytes);
+                pauseMax = Math.max(pauseMax, sample.gcPauseMaxSeconds);
+            }
+            long injected = upstream.sequence.get() - injectedFrom;
+            speaker.join();
+            // O que já foi injetado ainda pode estar num tick do radar
+            TimeUnit.SECONDS.sleep(1);
+            Metrics after = Metrics.read(port);
+
+            System.out.printf(Locale.ROOT, "%8d | %12.0f | %10.0f | %7.1f%% | %12.1f | %7.1f | %8.1f"
+                            + " | %6.0f | %11.1f | %7.1f | %8.1f | %11.0f | %3.0f | %5.0f | %12.1f | %7d%n",
+                    clients, injected / (double) seconds, radarLatency.count() / (double) seconds,
+                    100.0 * radarLatency.count() / Math.max(1, injected * clients),
+                    radarLatency.percentile(0.50), radarLatency.percentile(0.99), radarLatency.percentile(0.999),
+                    chatLatency.count() / (double) seconds,
+                    chatLatency.percentile(0.50), chatLatency.percentile(0.99), chatLatency.percentile(0.999),
+                    heapMax / 1e6, after.gcPauses - before.gcPauses, (after.gcPauseSeconds - before.gcPauseSeconds) * 1000,
+                    pauseMax * 1000, upstream.skippedTicks.sum() - skippedFrom);
+        } finally {
+            for (WebSocket socket : terminals) socket.abort();
+            for (WebSocket socket : users) socket.abort();
+            // A aplicação processa os "saiu" antes do próximo passo
+            TimeUnit.SECONDS.sleep(3);
+        }
+    }
+
+    // Mensagens numeradas no chat, cada uma de um usuário diferente, no ritmo pedido
+    private static void speak(List<WebSocket> users, ChatSequence chat, int perSecond, long end) {
+        if (perSecond <= 0 || users.isEmpty()) return;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / perSecond;
+        long next = System.nanoTime();
+        int turn = 0;
+        try {
+            while (next < end) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+                long seq = chat.sequence.getAndIncrement();
+                chat.sentAt.set((int) (seq % ChatSequence.CAPACITY), System.nanoTime());
+                users.get(turn++ % users.size()).sendText("{\"type\":\"MSG\",\"value\":\"lt-" + seq + "\"}", true)
+                        .get(10, TimeUnit.SECONDS);
+                next += intervalNanos;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("falha ao mandar mensagem no chat: " + e);
+        }
+    }
+
+    private static void awaitReady(int port) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/q/metrics")).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            try {
+                if (HTTP.send(request, HttpResponse.BodyHandlers.ofString()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // ainda subindo
+            }
+            TimeUnit.MILLISECONDS.sleep(250);
+        }
+        throw new IllegalStateException("aplicação na porta " + port + " não subiu em 60 s");
+    }
+
+    // Substituto da AISStream: depois da subscrição, envia a frota em rodízio a "rate" relatórios/s.
+    // O instante de envio de cada relatório fica num anel indexado pela sequência (o "LT<n>" do destino).
+    static final class Upstream {
+        static final int CAPACITY = 1 << 20;
+        private static final long TICK_MS = 10;
+
+        final AtomicLong sequence = new AtomicLong();
+        final AtomicLongArray sentAt = new AtomicLongArray(CAPACITY);
+        final LongAdder skippedTicks = new LongAdder();
+        volatile long measureFrom = Long.MAX_VALUE;
+
+        private final Vertx vertx;
+        private final int rate;
+        private final long[] mmsi;
+        private final double[] lat, lon;
+        private final long[] lastMillis;
+        private final CompletableFuture<Void> subscribed = new CompletableFuture<>();
+        private volatile ServerWebSocket socket;
+        private long timerId = -1;
+        private double budget;
+        private long lastTick;
+        private int cursor;
+
+        Upstream(Vertx vertx, int fleet, int rate) {
+            this.vertx = vertx;
+            this.rate = rate;
+            mmsi = new long[fleet];
+            lat = new double[fleet];
+            lon = new double[fleet];
+            lastMillis = new long[fleet];
+            // Frota espalhada entre Rio e Santa Catarina, longe das bordas da costa coberta
+            for (int i = 0; i < fleet; i++) {
+                mmsi[i] = 720_000_000L + i;
+                lat[i] = -27.0 + 4.0 * i / Math.max(1, fleet);
+                lon[i] = -47.5 + 4.0 * ((i * 37) % Math.max(1, fleet)) / Math.max(1, fleet);
+            }
+        }
+
+        void accept(ServerWebSocket ws) {
+            if (!ws.path().endsWith("/v0/stream")) {
+                ws.reject();
+                return;
+            }
+            // Igual à AISStream: o envio só começa depois da mensagem de subscrição
+            ws.textMessageHandler(subscription -> {
+                socket = ws;
+                if (timerId < 0) {
+                    lastTick = System.nanoTime();
+                    timerId = vertx.setPeriodic(TICK_MS, id -> tick());
+                }
+                subscribed.complete(null);
+            });
+            ws.closeHandler(v -> {
+                if (socket == ws) socket = null;
+            });
+        }
+
+        void awaitSubscription() throws Exception {
+            subscribed.get(60, TimeUnit.SECONDS);
+        }
+
+        void stop() {
+            if (timerId >= 0) vertx.cancelTimer(timerId);
+        }
+
+        // No event loop do Vert.x
+        private void tick() {
+            long now = System.nanoTime();
+            budget += rate * ((now - lastTick) / 1e9);
+            lastTick = now;
+            ServerWebSocket ws = socket;
+            if (ws == null || ws.writeQueueFull()) {
+                // A aplicação não está dando conta (ou reconectando): o ritmo não acumula
+                skippedTicks.increment();
+                budget = 0;
+                return;
+            }
+            int frames = (int) budget;
+            budget -= frames;
+            for (int i = 0; i < frames; i++) {
+                long seq = sequence.getAndIncrement();
+                byte[] frame = next(seq);
+                sentAt.set((int) (seq % CAPACITY), System.nanoTime());
+                ws.writeBinaryMessage(Buffer.buffer(frame));
+            }
+        }
+
+        private byte[] next(long seq) {
+            int i = cursor++ % mmsi.length;
+            lon[i] += 0.001;
+            // time_utc estritamente crescente por navio: o deduplicador descarta relatório igual ou mais velho
+            long millis = Math.max(System.currentTimeMillis(), lastMillis[i] + 1);
+            lastMillis[i] = millis;
+            String time = TIME_UTC.format(Instant.ofEpochMilli(millis));
+            String json = "{\"Message\":{\"PositionReport\":{\"Cog\":90.0,\"Latitude\":" + lat[i] + ",\"Longitude\":" + lon[i]
+                    + ",\"MessageID\":1,\"NavigationalStatus\":0,\"Sog\":12.0,\"TrueHeading\":90"
+                    + ",\"UserID\":" + mmsi[i] + ",\"Valid\":true}},\"MessageType\":\"PositionReport\","
+                    + "\"MetaData\":{\"MMSI\":" + mmsi[i] + ",\"MMSI_String\":" + mmsi[i]
+                    + ",\"ShipName\":\"CARGA " + (i + 1) + "\",\"Flag\":\"🇧🇷\",\"ShipType\":70"
+                    + ",\"Destination\":\"LT" + seq + "\",\"latitude\":" + lat[i] + ",\"longitude\":" + lon[i]
+                    + ",\"time_utc\":\"" + time + " +0000 UTC\"}}";
+            return json.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    static final class ChatSequence {
+        static final int CAPACITY = 1 << 16;
+        final AtomicLong sequence = new AtomicLong();
+        final AtomicLongArray sentAt = new AtomicLongArray(CAPACITY);
+        volatile long measureFrom = Long.MAX_VALUE;
+    }
+
+    // Um terminal do radar: cada destino "LT<n>" que chega é uma entrega do relatório n
+    private static final class RadarClient implements WebSocket.Listener {
+        private final Upstream upstream;
+        private final Histogram latency;
+        private final StringBuilder partial = new StringBuilder();
+
+        RadarClient(Upstream upstream, Histogram latency) {
+            this.upstream = upstream;
+            this.latency = latency;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                long now = System.nanoTime();
+                Matcher matcher = RADAR_SEQ.matcher(partial);
+                while (matcher.find()) {
+                    long seq = Long.parseLong(matcher.group(1));
+                    if (seq >= upstream.measureFrom) latency.record(now - upstream.sentAt.get((int) (seq % Upstream.CAPACITY)));
+                }
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return CompletableFuture.completedStage(null);
+        }
+    }
+
+    // Um usuário do chat: cada "lt-<n>" que chega é a mensagem n entregue a ele
+    private static final class ChatClient implements WebSocket.Listener {
+        private final ChatSequence chat;
+        private final Histogram latency;
+        private final StringBuilder partial = new StringBuilder();
+
+        ChatClient(ChatSequence chat, Histogram latency) {
+            this.chat = chat;
+            this.latency = latency;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                long now = System.nanoTime();
+                Matcher matcher = CHAT_SEQ.matcher(partial);
+                while (matcher.find()) {
+                    long seq = Long.parseLong(matcher.group(1));
+                    if (seq >= chat.measureFrom) latency.record(now - chat.sentAt.get((int) (seq % ChatSequence.CAPACITY)));
+                }
+                partial.setLength(0);
+            }
+            webSocket.request(1);
+            return CompletableFuture.completedStage(null);
+        }
+    }
+
+    // Histograma de latência em baldes de 100 µs até 10 s (o último balde junta o que passou disso):
+    // milhões de amostras por passo sem guardar cada uma
+    static final class Histogram {
+        private static final long BUCKET_NANOS = 100_000;
+        private static final int BUCKETS = 100_000;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+
+        void record(long nanos) {
+            buckets.incrementAndGet((int) Math.min(BUCKETS - 1, Math.max(0, nanos) / BUCKET_NANOS));
+            count.increment();
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            count.reset();
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        // Em ms, pelo limite superior do balde
+        double percentile(double p) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) total += buckets.get(i);
+            if (total == 0) return Double.NaN;
+            long rank = (long) Math.ceil(p * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= Math.max(1, rank)) return (i + 1) * BUCKET_NANOS / 1e6;
+            }
+            return BUCKETS * BUCKET_NANOS / 1e6;
+        }
+    }
+
+    // Heap e GC do /q/metrics (binders de JVM do Micrometer)
+    record Metrics(double heapBytes, double gcPauses, double gcPauseSeconds, double gcPauseMaxSeconds) {
+
+        static Metrics read(int port) throws IOException, InterruptedException {
+            String text = HTTP.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/q/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            double heap = 0, pauses = 0, pauseSeconds = 0, pauseMax = 0;
+            for (String line : text.split("\n")) {
+                if (line.startsWith("jvm_memory_used_bytes{") && line.contains("area=\"heap\"")) heap += value(line);
+                else if (line.startsWith("jvm_gc_pause_seconds_count")) pauses += value(line);
+                else if (line.startsWith("jvm_gc_pause_seconds_sum")) pauseSeconds += value(line);
+                else if (line.startsWith("jvm_gc_pause_seconds_max")) pauseMax = Math.max(pauseMax, value(line));
+            }
+            return new Metrics(heap, pauses, pauseSeconds, pauseMax);
+        }
+
+        private static double value(String line) {
+            return Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+        }
+    }
+}
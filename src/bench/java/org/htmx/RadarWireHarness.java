@@ -0,0 +1,228 @@
+package org.htmx;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+
+// Tamanho e vazão do radar HTML (/ships-ws) x binário (/ships-bin), lado a lado sobre o mesmo feed:
+// sobe a aplicação com o simulador e conecta o mesmo número de clientes nos dois endpoints.
+// Bytes por atualização de navio vêm do primeiro cliente de cada endpoint; o tamanho com permessage-deflate
+// é estimado passando cada frame por um Deflater por conexão (contexto mantido entre mensagens e sync flush,
+// como na RFC 7692), já que o cliente WebSocket do JDK não negocia a extensão. A compressão vem desligada
+// no servidor; essa coluna mostra o que ligá-la economizaria no HTML e no binário.
+//
+//   ./mvnw package -DskipTests
+//   ./mvnw -Pbench test-compile exec:exec -Dbench.main=org.htmx.RadarWireHarness \
+//       -Djmh.args="target/quarkus-app/quarkus-run.jar 100 20"
+//
+// Argumentos: <jar> [clientes por endpoint=100] [segundos=20] [multiplicador do simulador=10] [porta=18110]
+public class RadarWireHarness {
+
+    // Atualização de navio no HTML: entrada nova (id="ship-...") ou delta (id="ship-...-pos" etc.)
+    private static final Pattern HTML_UPDATE = Pattern.compile("id=\"ship-(\\d+)[\"-]");
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("uso: RadarWireHarness <jar> [clientes por endpoint=100] [segundos=20] [multiplicador do simulador=10] [porta=18110]");
+            System.exit(2);
+        }
+        Path jar = Path.of(args[0]);
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int rate = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int port = args.length > 4 ? Integer.parseInt(args[4]) : 18110;
+
+        Path log = Files.createTempFile("radar-wire-", ".log");
+        Process process = new ProcessBuilder("java",
+                "-Dquarkus.http.port=" + port,
+                "-Dquarkus.profile=sim",
+                "-Dsimulator.rate-multiplier=" + rate,
+                "-Djournal.enabled=false",
+                "-Dhistory.enabled=false",
+                "-jar", jar.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+
+        List<WebSocket> sockets = new ArrayList<>();
+        Stream html = new Stream();
+        Stream binary = new Stream();
+        try {
+            awaitReady(port);
+            // Enche a tabela antes de medir: os dois endpoints começam com o mesmo estado
+            TimeUnit.SECONDS.sleep(5);
+            for (int i = 0; i < clients; i++) {
+                sockets.add(HTTP.newWebSocketBuilder()
+                        .buildAsync(URI.create("ws://localhost:" + port + "/ships-ws"), new HtmlClient(html, i == 0)).get(10, TimeUnit.SECONDS));
+                sockets.add(HTTP.newWebSocketBuilder()
+                        .buildAsync(URI.create("ws://localhost:" + port + "/ships-bin"), new BinaryClient(binary, i == 0)).get(10, TimeUnit.SECONDS));
+            }
+
+            // Snapshots iniciais fora da medição
+            TimeUnit.SECONDS.sleep(3);
+            html.reset();
+            binary.reset();
+            TimeUnit.SECONDS.sleep(seconds);
+
+            System.out.println("endpoint   | clientes | frames/s | MB/s (total) | bytes/atualização | com deflate | atualizações/s (amostra)");
+            html.print("/ships-ws", clients, seconds);
+            binary.print("/ships-bin", clients, seconds);
+        } finally {
+            for (WebSocket socket : sockets) socket.abort();
+            process.destroy();
+            if (!process.waitFor(15, TimeUnit.SECONDS)) process.destroyForcibly();
+            System.err.println("log da aplicação em " + log);
+        }
+    }
+
+    private static void awaitReady(int port) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/q/metrics")).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            try {
+                if (HTTP.send(request, HttpResponse.BodyHandlers.ofString()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // ainda subindo
+            }
+            TimeUnit.MILLISECONDS.sleep(250);
+        }
+        throw new IllegalStateException("aplicação na porta " + port + " não subiu em 60 s");
+    }
+
+    // Contadores de um endpoint: todos os clientes somam frames e bytes; a amostra soma atualizações e deflate
+    private static final class Stream {
+        final LongAdder frames = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder sampleBytes = new LongAdder();
+        final LongAdder sampleDeflated = new LongAdder();
+        final LongAdder sampleUpdates = new LongAdder();
+
+        void reset() {
+            frames.reset();
+            bytes.reset();
+            sampleBytes.reset();
+            sampleDeflated.reset();
+            sampleUpdates.reset();
+        }
+
+        void print(String endpoint, int clients, int seconds) {
+            long updates = Math.max(1, sampleUpdates.sum());
+            System.out.printf(Locale.ROOT, "%-10s | %8d | %8.0f | %12.2f | %17.1f | %11.1f | %24.0f%n",
+                    endpoint, clients, frames.sum() / (double) seconds, bytes.sum() / 1e6 / seconds,
+                    sampleBytes.sum() / (double) updates, sampleDeflated.sum() / (double) updates,
+                    sampleUpdates.sum() / (double) seconds);
+        }
+
+        // permessage-deflate: um fluxo deflate por conexão, sync flush por mensagem, sem os 4 bytes finais
+        void sample(Deflater deflater, byte[] message, int updates) {
+            deflater.setInput(message);
+            byte[] out = new byte[message.length + 64];
+            long size = 0;
+            int n;
+            do {
+                n = deflater.deflate(out, 0, out.length, Deflater.SYNC_FLUSH);
+                size += n;
+            } while (n == out.length);
+            sampleBytes.add(message.length);
+            sampleDeflated.add(size - 4);
+            sampleUpdates.add(updates);
+        }
+    }
+
+    private static final class HtmlClient implements WebSocket.Listener {
+        private final Stream stream;
+        private final Deflater deflater;
+        private final StringBuilder partial = new StringBuilder();
+
+        HtmlClient(Stream stream, boolean sample) {
+            this.stream = stream;
+            this.deflater = sample ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            stream.bytes.add(data.length());
+            if (deflater != null) partial.append(data);
+            if (last) {
+                stream.frames.increment();
+                if (deflater != null) {
+                    String message = partial.toString();
+                    partial.setLength(0);
+                    // Uma entrada nova tem vários spans com o mesmo MMSI: conta navios distintos no frame
+                    Set<String> ships = new HashSet<>();
+                    Matcher matcher = HTML_UPDATE.matcher(message);
+                    while (matcher.find()) ships.add(matcher.group(1));
+                    stream.sample(deflater, message.getBytes(StandardCharsets.UTF_8), ships.size());
+                }
+            }
+            webSocket.request(1);
+            return CompletableFuture.completedStage(null);
+        }
+    }
+
+    private static final class BinaryClient implements WebSocket.Listener {
+        private final Stream stream;
+        private final Deflater deflater;
+        private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+
+        BinaryClient(Stream stream, boolean sample) {
+            this.stream = stream;
+            this.deflater = sample ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+            stream.bytes.add(data.remaining());
+            if (deflater != null) {
+                byte[] chunk = new byte[data.remaining()];
+                data.get(chunk);
+                partial.writeBytes(chunk);
+            }
+            if (last) {
+                stream.frames.increment();
+                if (deflater != null) {
+                    byte[] message = partial.toByteArray();
+                    partial.reset();
+                    stream.sample(deflater, message, records(ByteBuffer.wrap(message)));
+                }
+            }
+            webSocket.request(1);
+            return CompletableFuture.completedStage(null);
+        }
+
+        // Pula cabeçalho e dicionário (formato no RadarFrame) e lê a contagem de registros
+        private static int records(ByteBuffer frame) {
+            frame.position(2);
+            int entries = frame.getShort() & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                frame.position(frame.position() + 2);
+                int length = frame.get() & 0xFF;
+                frame.position(frame.position() + length);
+            }
+            return frame.getShort() & 0xFFFF;
+        }
+    }
+}
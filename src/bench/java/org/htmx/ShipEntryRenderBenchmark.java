@@ -0,0 +1,61 @@
+package org.htmx;
+
+import io.quarkus.qute.Engine;
+import io.quarkus.qute.ReflectionValueResolver;
+import io.quarkus.qute.Template;
+import org.htmx.ShipRadarServer.ShipData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Renderização do fragmento do radar (ShipData.toHtml) com o mesmo template do app.
+// Fora do Quarkus o @CheckedTemplate não existe, então o template é carregado num Engine standalone
+// com resolvers por reflexão: o número absoluto é pessimista, a comparação entre rodadas é o que vale.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipEntryRenderBenchmark {
+
+    private Template shipEntry;
+    private ShipData ship;
+
+    @Setup
+    public void setup() throws IOException {
+        Engine engine = Engine.builder().addDefaults().addValueResolver(new ReflectionValueResolver()).build();
+        try (InputStream in = getClass().getResourceAsStream("/templates/ShipRadarServer/shipEntry.html")) {
+            shipEntry = engine.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        ship = new ShipData("NAVEGADOR SANTISTA", 710012345L, -23.98412, -46.29871, "🇧🇷", "📦 Carga",
+                "SANTOS", 20.9, "Sudoeste", ReverseGeocoder.locate(-23.98412, -46.29871));
+        ship.typeCode = 71;
+    }
+
+    // Uma renderização por relatório (o que toHtml faz na primeira chamada)
+    @Benchmark
+    public String render() {
+        return shipEntry.data("ship", ship).render();
+    }
+
+    // Chamadas seguintes de toHtml: só devolvem o fragmento guardado
+    @Benchmark
+    public String cachedFragment() {
+        String html = ship.fragment;
+        if (html == null) ship.fragment = html = shipEntry.data("ship", ship).render();
+        return html;
+    }
+}
@@ -0,0 +1,110 @@
+package org.htmx;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Partida da aplicação: tempo até a primeira requisição respondida (GET / renderiza o chat) e RSS do processo
+// nesse momento, para o jar (JVM) e, se informado, o executável nativo. Cada build sobe N vezes; a tabela
+// mostra a mediana e o melhor tempo. O upstream aponta para uma porta fechada: a conexão é assíncrona
+// e não pode atrasar a primeira resposta.
+//
+//   ./mvnw package -DskipTests && ./mvnw package -DskipTests -Dnative
+//   ./mvnw -Pbench test-compile exec:exec -Dbench.main=org.htmx.StartupHarness \
+//       -Djmh.args="target/quarkus-app/quarkus-run.jar target/code-with-chat-1.0.0-SNAPSHOT-runner 5 lean"
+//
+// Argumentos: <jar> [executável nativo ou -] [rodadas=5] [profile=lean] [porta=18100]
+// RSS vem de /proc/<pid>/status (só Linux).
+public class StartupHarness {
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("uso: StartupHarness <jar> [executável nativo ou -] [rodadas=5] [profile=lean] [porta=18100]");
+            System.exit(2);
+        }
+        Path jar = Path.of(args[0]);
+        String nativeBinary = args.length > 1 && !args[1].equals("-") ? args[1] : null;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        String profile = args.length > 3 ? args[3] : "lean";
+        int port = args.length > 4 ? Integer.parseInt(args[4]) : 18100;
+
+        System.out.println("build  | profile | primeira requisição (mediana / melhor) | RSS (mediana)");
+        report("jvm", profile, measure(List.of("java", "-jar", jar.toString()), profile, runs, port));
+        if (nativeBinary != null) report("nativo", profile, measure(List.of(nativeBinary), profile, runs, port));
+    }
+
+    record Run(double millis, long rssKb) {}
+
+    private static void report(String build, String profile, List<Run> runs) {
+        double[] millis = runs.stream().mapToDouble(Run::millis).sorted().toArray();
+        long[] rss = runs.stream().mapToLong(Run::rssKb).sorted().toArray();
+        System.out.printf(Locale.ROOT, "%-6s | %-7s | %14.0f ms / %6.0f ms           | %6.1f MB%n",
+                build, profile, millis[millis.length / 2], millis[0], rss[rss.length / 2] / 1024.0);
+    }
+
+    private static List<Run> measure(List<String> command, String profile, int runs, int port) throws Exception {
+        List<Run> results = new ArrayList<>(runs);
+        for (int i = 0; i < runs; i++) {
+            List<String> line = new ArrayList<>(command);
+            // Logo depois do executável: antes do -jar na JVM, primeiros argumentos no nativo
+            line.addAll(1, Arrays.asList(
+                    "-Dquarkus.http.port=" + port,
+                    "-Dquarkus.profile=" + profile,
+                    "-Daisstream.api.key=startup",
+                    "-Daisstream.upstream-uri=ws://localhost:1"));
+            Path log = Files.createTempFile("startup-", ".log");
+
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(line)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            try {
+                awaitFirstResponse(port, log);
+                double millis = (System.nanoTime() - start) / 1e6;
+                results.add(new Run(millis, rssKb(process.pid())));
+            } finally {
+                process.destroy();
+                if (!process.waitFor(15, TimeUnit.SECONDS)) process.destroyForcibly();
+            }
+        }
+        return results;
+    }
+
+    private static void awaitFirstResponse(int port, Path log) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/")).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            try {
+                if (HTTP.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // ainda subindo
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        throw new IllegalStateException("a aplicação não respondeu em 60 s; log em " + log);
+    }
+
+    private static long rssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/" + pid + "/status"))) {
+                if (line.startsWith("VmRSS:")) return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        } catch (IOException | NumberFormatException e) {
+            // fora do Linux
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,99 @@
+package org.htmx;
+
+import org.htmx.ShipRadarServer.ShipData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Tabela de navios sob contenção: várias threads atualizando enquanto outras leem os recentes,
+// e o filtro do /navios <filtro> sobre a frota inteira.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VesselStoreBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Fleet {
+        @Param({"2000", "50000"})
+        int vessels;
+
+        VesselStateStore store;
+        ShipData[] reports;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            store = new VesselStateStore();
+            store.stats = new ShipStats();
+            store.staleAfterMinutes = 30;
+
+            Random random = new Random(42);
+            String[] types = {"📦 Carga", "🛢️ Tanque", "🎣 Pesca", "🛳️ Passageiros", "⛵ Rebocador"};
+            reports = new ShipData[vessels];
+            for (int i = 0; i < vessels; i++) {
+                double lat = -34 + random.nextDouble() * 38, lon = -52 + random.nextDouble() * 20;
+                ShipData ship = new ShipData("SIM " + i, 710_000_000L + i, lat, lon, "🇧🇷", types[i % types.length],
+                        "SANTOS", 10 + random.nextDouble() * 30, "Norte", ReverseGeocoder.locate(lat, lon));
+                ship.typeCode = 70 + i % 20;
+                reports[i] = ship;
+                store.update(ship);
+            }
+        }
+    }
+
+    // Relatórios próprios de cada thread: só a tabela é compartilhada
+    @State(Scope.Thread)
+    public static class Reporter {
+        ShipData[] reports;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup(Fleet fleet) {
+            reports = new ShipData[fleet.reports.length];
+            for (int i = 0; i < reports.length; i++) reports[i] = fleet.reports[i].copy();
+            next = new Random().nextInt(reports.length);
+        }
+    }
+
+    // Cada thread atualiza navios espalhados pela frota (o mesmo MMSI às vezes disputado por várias)
+    @Benchmark
+    @Threads(4)
+    public void updateContended(Fleet fleet, Reporter reporter) {
+        ShipData report = reporter.reports[reporter.next++ % reporter.reports.length];
+        report.lat += 0.0001;
+        fleet.store.update(report);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<ShipData> recent20(Fleet fleet) {
+        return fleet.store.recent(20);
+    }
+
+    // /navios <filtro> como o chat executa: busca no índice invertido + página de 5
+    @Benchmark
+    public String naviosFilter(Fleet fleet) {
+        return ChatWebSocket.naviosFilterMessage(fleet.store.search("santa catarina", 1, 5), "santa catarina");
+    }
+
+    // Termo que casa com boa parte da frota: mede a interseção + ordenação das postagens
+    @Benchmark
+    public String naviosFilterBroad(Fleet fleet) {
+        return ChatWebSocket.naviosFilterMessage(fleet.store.search("carga", 3, 5), "carga");
+    }
+}
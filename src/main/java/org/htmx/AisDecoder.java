@@ -0,0 +1,190 @@
+package org.htmx;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Decoder em streaming (JsonParser) dos frames da AISStream.
+// Lê direto dos bytes do Buffer do Vert.x, pula as subárvores que não interessam e preenche
+// um PositionReport reutilizável, sem montar a árvore JsonNode inteira.
+// Não é thread-safe: use uma instância por conexão.
+public final class AisDecoder {
+
+    static final String UNKNOWN_NAME = "DESCONHECIDO";
+    static final String DEFAULT_FLAG = "🏳️";
+    static final String NO_DESTINATION = "Não informado";
+
+    private final JsonFactory factory;
+
+    public AisDecoder(JsonFactory factory) {
+        this.factory = factory;
+    }
+
+    public AisDecoder() {
+        this(new JsonFactory());
+    }
+
+    // true se o frame é um PositionReport (e "out" foi preenchido); lança IOException para JSON malformado
+    public boolean decode(Buffer buffer, PositionReport out) throws IOException {
+        ByteBuf buf = buffer.getByteBuf();
+        if (buf.hasArray()) {
+            try (JsonParser parser = factory.createParser(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes())) {
+                return decode(parser, out);
+            }
+        }
+        try (JsonParser parser = factory.createParser((InputStream) new ByteBufInputStream(buf))) {
+            return decode(parser, out);
+        }
+    }
+
+    public boolean decode(byte[] bytes, PositionReport out) throws IOException {
+        try (JsonParser parser = factory.createParser(bytes)) {
+            return decode(parser, out);
+        }
+    }
+
+    private boolean decode(JsonParser p, PositionReport out) throws IOException {
+        out.reset();
+        if (p.nextToken() != JsonToken.START_OBJECT) return false;
+
+        // A AISStream manda "Message" antes de "MessageType", então só decidimos no fim do objeto
+        boolean positionReport = false;
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "MessageType" -> positionReport = "PositionReport".equals(text(p, value, ""));
+                case "Message" -> readMessage(p, value, out);
+                case "MetaData" -> readMetaData(p, value, out);
+                default -> p.skipChildren();
+            }
+        }
+
+        // Campos ausentes continuam zerados pelo reset(), como o path() da árvore
+        if (!positionReport) return false;
+
+        String name = out.shipName == null ? UNKNOWN_NAME : out.shipName.trim();
+        out.shipName = name.isEmpty() ? UNKNOWN_NAME : name;
+        if (out.flag == null) out.flag = DEFAULT_FLAG;
+        String destination = out.destination == null ? "" : out.destination.trim();
+        out.destination = destination.isEmpty() ? NO_DESTINATION : destination;
+        return true;
+    }
+
+    private void readMessage(JsonParser p, JsonToken value, PositionReport out) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken inner = p.nextToken();
+            if ("PositionReport".equals(field) && inner == JsonToken.START_OBJECT) {
+                readReport(p, out);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private void readReport(JsonParser p, PositionReport out) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            switch (field) {
+                case "UserID" -> out.mmsi = scalar(p, value) ? p.getValueAsLong(0) : 0;
+                case "Latitude" -> out.lat = scalar(p, value) ? p.getValueAsDouble(0) : 0;
+                case "Longitude" -> out.lon = scalar(p, value) ? p.getValueAsDouble(0) : 0;
+                case "Sog" -> out.sog = scalar(p, value) ? p.getValueAsDouble(0) : 0;
+                case "TrueHeading" -> out.trueHeading = scalar(p, value) ? p.getValueAsInt(0) : 0;
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void readMetaData(JsonParser p, JsonToken value, PositionReport out) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken inner = p.nextToken();
+            switch (field) {
+                case "ShipName" -> out.shipName = text(p, inner, null);
+                case "Flag" -> out.flag = text(p, inner, null);
+                case "ShipType" -> out.shipType = scalar(p, inner) ? p.getValueAsInt(0) : 0;
+                case "Destination" -> out.destination = text(p, inner, null);
+                case "time_utc" -> out.reportedAt = inner == JsonToken.VALUE_STRING
+                        ? parseTimeUtc(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()) : 0;
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    // "2026-10-17 12:00:41.123456789 +0000 UTC" → epoch millis, direto do buffer do parser (sem String).
+    // A AISStream sempre manda UTC; formato inesperado vale 0 (sem timestamp).
+    static long parseTimeUtc(char[] c, int off, int len) {
+        if (len < 19 || c[off + 4] != '-' || c[off + 7] != '-' || c[off + 13] != ':' || c[off + 16] != ':') return 0;
+        int year = digits(c, off, 4), month = digits(c, off + 5, 2), day = digits(c, off + 8, 2);
+        int hour = digits(c, off + 11, 2), minute = digits(c, off + 14, 2), second = digits(c, off + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || minute < 0 || second < 0) return 0;
+
+        int millis = 0;
+        if (len > 20 && c[off + 19] == '.') {
+            // Só os 3 primeiros dígitos da fração; ".5" vale 500 ms
+            for (int n = 0, i = off + 20, end = off + len; n < 3; n++, i++) {
+                int d = i < end ? c[i] - '0' : 0;
+                millis = millis * 10 + (d >= 0 && d <= 9 ? d : 0);
+                if (d < 0 || d > 9) end = i;
+            }
+        }
+        return ((epochDay(year, month, day) * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+    }
+
+    private static int digits(char[] c, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int d = c[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    // Dias desde 1970-01-01 no calendário gregoriano (algoritmo "days from civil")
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    // Objetos/arrays são pulados (e valem zero), como asInt()/asDouble() de um nó container
+    private static boolean scalar(JsonParser p, JsonToken value) throws IOException {
+        if (value.isStructStart()) {
+            p.skipChildren();
+            return false;
+        }
+        return true;
+    }
+
+    // Equivalente ao asText(default) da árvore: null usa o default, container vira ""
+    private static String text(JsonParser p, JsonToken value, String defaultValue) throws IOException {
+        if (value.isStructStart()) {
+            p.skipChildren();
+            return "";
+        }
+        if (value == JsonToken.VALUE_NULL) return defaultValue;
+        return p.getValueAsString(defaultValue);
+    }
+}
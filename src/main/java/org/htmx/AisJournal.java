@@ -0,0 +1,228 @@
+package org.htmx;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+
+// Journal binário append-only dos relatórios decodificados, em segmentos mapeados em memória.
+// Serve para reconstruir o estado dos navios rapidamente após um restart e para replay por janela
+// de tempo (diagnóstico). Não depende do H2: funciona com o histórico desligado.
+//
+// Segmento: segment-<epochMillis do início>.ais, tamanho fixo, registros em sequência:
+//   int tamanho | long recordedAt | long mmsi | double lat | double lon | float sog |
+//   short heading | short tipo | nome, bandeira, destino (short tamanho + UTF-8)
+// tamanho == 0 marca o fim dos dados escritos (o arquivo nasce zerado).
+@ApplicationScoped
+public class AisJournal {
+
+    private static final Logger LOG = Logger.getLogger(AisJournal.class);
+
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".ais";
+    private static final int MAX_STRING_BYTES = 255;
+    private static final int FIXED_BYTES = 8 + 8 + 8 + 8 + 4 + 2 + 2 + 3 * 2;
+
+    @ConfigProperty(name = "journal.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "journal.dir", defaultValue = "data/journal")
+    Path dir;
+
+    @ConfigProperty(name = "journal.segment-size-mb", defaultValue = "64")
+    int segmentSizeMb;
+
+    @ConfigProperty(name = "journal.retention-hours", defaultValue = "24")
+    int retentionHours;
+
+    // Janela reconstruída no startup; alinhada com vessels.stale-after-minutes
+    @ConfigProperty(name = "journal.warm-restart-minutes", defaultValue = "30")
+    int warmRestartMinutes;
+
+    @Inject
+    ShipRadarServer radarServer;
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled) return;
+        try {
+            Files.createDirectories(dir);
+            long since = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(warmRestartMinutes);
+            long start = System.nanoTime();
+            int[] restored = {0};
+            replay(since, Long.MAX_VALUE, (report, recordedAt) -> {
+                radarServer.restore(report, recordedAt);
+                restored[0]++;
+            });
+            if (restored[0] > 0) {
+                LOG.info("♻️ Journal: " + restored[0] + " relatórios reaplicados em "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms ("
+                        + radarServer.getTrackedShips() + " navios)");
+            }
+        } catch (IOException e) {
+            LOG.error("❌ Erro ao ler o journal AIS: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        closeSegment();
+    }
+
+    // Chamado pelo consumidor da ingestão (uma thread); só escreve em memória mapeada
+    public synchronized void append(PositionReport report, long recordedAt) {
+        if (!enabled) return;
+        byte[] name = utf8(report.shipName);
+        byte[] flag = utf8(report.flag);
+        byte[] destination = utf8(report.destination);
+        int length = FIXED_BYTES + name.length + flag.length + destination.length;
+
+        try {
+            if (segment == null || segment.remaining() < 4 + length + 4) roll(recordedAt);
+        } catch (IOException e) {
+            LOG.error("❌ Erro ao abrir segmento do journal: " + e.getMessage());
+            return;
+        }
+
+        int lengthAt = segment.position();
+        segment.position(lengthAt + 4);
+        segment.putLong(recordedAt);
+        segment.putLong(report.mmsi);
+        segment.putDouble(report.lat);
+        segment.putDouble(report.lon);
+        segment.putFloat((float) report.sog);
+        segment.putShort((short) report.trueHeading);
+        segment.putShort((short) report.shipType);
+        putString(name);
+        putString(flag);
+        putString(destination);
+        // O tamanho vai por último: um registro pela metade nunca parece completo
+        segment.putInt(lengthAt, length);
+    }
+
+    // Reaplica, em ordem, os registros com recordedAt em [from, to)
+    public void replay(long from, long to, ObjLongConsumer<PositionReport> consumer) throws IOException {
+        if (!Files.isDirectory(dir)) return;
+        List<Path> segments = segments();
+        PositionReport report = new PositionReport();
+
+        for (int i = 0; i < segments.size(); i++) {
+            long segmentStart = startOf(segments.get(i));
+            long segmentEnd = i + 1 < segments.size() ? startOf(segments.get(i + 1)) : Long.MAX_VALUE;
+            if (segmentEnd < from || segmentStart >= to) continue;
+
+            try (FileChannel ch = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                while (buf.remaining() >= 4) {
+                    int length = buf.getInt();
+                    if (length <= 0 || length > buf.remaining()) break;
+                    int next = buf.position() + length;
+
+                    long recordedAt = buf.getLong();
+                    if (recordedAt >= from && recordedAt < to) {
+                        report.mmsi = buf.getLong();
+                        report.lat = buf.getDouble();
+                        report.lon = buf.getDouble();
+                        report.sog = buf.getFloat();
+                        report.trueHeading = buf.getShort();
+                        report.shipType = buf.getShort();
+                        report.shipName = getString(buf);
+                        report.flag = getString(buf);
+                        report.destination = getString(buf);
+                        consumer.accept(report, recordedAt);
+                    }
+                    buf.position(next);
+                }
+            }
+        }
+    }
+
+    private void roll(long now) throws IOException {
+        closeSegment();
+        Files.createDirectories(dir);
+        Path path = dir.resolve(PREFIX + now + SUFFIX);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentSizeMb * 1024 * 1024);
+        pruneOlderThan(now - TimeUnit.HOURS.toMillis(retentionHours));
+    }
+
+    private void closeSegment() {
+        if (segment == null) return;
+        try {
+            segment.force();
+            channel.close();
+        } catch (IOException e) {
+            LOG.error("❌ Erro ao fechar segmento do journal: " + e.getMessage());
+        }
+        segment = null;
+        channel = null;
+    }
+
+    // Um segmento só sai quando o seguinte também já é mais velho que o corte (todos os registros dele são)
+    private void pruneOlderThan(long cutoff) throws IOException {
+        List<Path> segments = segments();
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (startOf(segments.get(i + 1)) < cutoff) Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .forEach(result::add);
+        }
+        result.sort((a, b) -> Long.compare(startOf(a), startOf(b)));
+        return result;
+    }
+
+    private static long startOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static byte[] utf8(String value) {
+        if (value == null) return new byte[0];
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_STRING_BYTES) return bytes;
+        // Corta sem deixar um caractere UTF-8 pela metade
+        int end = MAX_STRING_BYTES;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) end--;
+        return java.util.Arrays.copyOf(bytes, end);
+    }
+
+    private void putString(byte[] bytes) {
+        segment.putShort((short) bytes.length);
+        segment.put(bytes);
+    }
+
+    static String getString(ByteBuffer buf) {
+        int length = buf.getShort();
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
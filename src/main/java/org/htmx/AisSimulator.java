@@ -0,0 +1,249 @@
+package org.htmx;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.websockets.next.OnClose;
+import io.quarkus.websockets.next.OnOpen;
+import io.quarkus.websockets.next.OnTextMessage;
+import io.quarkus.websockets.next.WebSocket;
+import io.quarkus.websockets.next.WebSocketConnection;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Substituto local da AISStream para testes de carga offline.
+// Aceita a mesma mensagem de subscrição e devolve frames PositionReport binários, sintéticos ou gravados,
+// a simulator.frames-per-second × simulator.rate-multiplier (1x a 1000x).
+// Uso: aisstream.upstream-uri=ws://localhost:8080/sim (o cliente acrescenta /v0/stream) — ver perfil %sim.
+@WebSocket(path = "/sim/v0/stream")
+public class AisSimulator {
+
+    private static final Logger LOG = Logger.getLogger(AisSimulator.class);
+
+    private static final long TICK_MS = 10;
+    private static final DateTimeFormatter TIME_UTC = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSSSS");
+    private static final int[] TYPES = {30, 37, 52, 60, 70, 71, 74, 79, 80, 84, 89, 54, 0};
+    private static final String[] FLAGS = {"🇧🇷", "🇧🇷", "🇧🇷", "🇵🇦", "🇱🇷", "🇲🇭", "🇸🇬", "🇲🇹"};
+    private static final String[] DESTINATIONS = {"SANTOS", "RIO DE JANEIRO", "PARANAGUA", "ITAJAI", "RIO GRANDE",
+            "VITORIA", "SALVADOR", "SUAPE", "FORTALEZA", "BELEM", ""};
+    // Cada área tem uma faixa de 100 mil MMSIs; mais navios que isso colidiriam com a faixa da área seguinte
+    private static final int MAX_VESSELS_PER_AREA = 100_000;
+
+    @ConfigProperty(name = "simulator.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "simulator.vessels", defaultValue = "500")
+    int vesselCount;
+
+    // Taxa base (1x) em frames por segundo por conexão
+    @ConfigProperty(name = "simulator.frames-per-second", defaultValue = "20")
+    int framesPerSecond;
+
+    @ConfigProperty(name = "simulator.rate-multiplier", defaultValue = "1")
+    int rateMultiplier;
+
+    // Arquivo com um frame JSON da AISStream por linha; sem ele, os frames são sintéticos
+    @ConfigProperty(name = "simulator.replay-file")
+    Optional<Path> replayFile;
+
+    // Envios ainda não concluídos por conexão; acima disso o tick é pulado (o cliente não está dando conta)
+    @ConfigProperty(name = "simulator.max-in-flight", defaultValue = "2048")
+    int maxInFlight;
+
+    @Inject
+    Vertx vertx;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+    private volatile List<byte[]> recorded;
+
+    @OnOpen
+    void onOpen(WebSocketConnection connection) {
+        if (!enabled) {
+            LOG.warn("⚠️ Simulador AIS desligado (simulator.enabled=false), fechando conexão");
+            connection.close().subscribe().with(v -> {});
+        }
+    }
+
+    // Igual à AISStream: o envio só começa depois da subscrição
+    @OnTextMessage
+    void onSubscription(WebSocketConnection connection, String message) {
+        if (!enabled || streams.containsKey(connection.id())) return;
+
+        double[] box = {-35.0, -55.0, 5.0, -30.0};
+        try {
+            JsonNode corners = mapper.readTree(message).path("BoundingBoxes").path(0);
+            if (corners.size() == 2) {
+                double lat1 = corners.get(0).get(0).asDouble(), lon1 = corners.get(0).get(1).asDouble();
+                double lat2 = corners.get(1).get(0).asDouble(), lon2 = corners.get(1).get(1).asDouble();
+                box = new double[]{Math.min(lat1, lat2), Math.min(lon1, lon2), Math.max(lat1, lat2), Math.max(lon1, lon2)};
+            }
+        } catch (IOException e) {
+            LOG.warn("⚠️ Subscrição inválida no simulador, usando a costa inteira: " + e.getMessage());
+        }
+
+        if (vesselCount > MAX_VESSELS_PER_AREA) {
+            LOG.warn("⚠️ simulator.vessels=" + vesselCount + " passa do limite por área, usando " + MAX_VESSELS_PER_AREA);
+        }
+        Stream stream = new Stream(connection, box, recordedFrames());
+        streams.put(connection.id(), stream);
+        stream.timerId = vertx.setPeriodic(TICK_MS, id -> stream.tick());
+        LOG.info("🧪 Simulador AIS: " + stream.rate + " frames/s ("
+                + (stream.recorded != null ? stream.recorded.size() + " frames gravados" : stream.mmsi.length + " navios sintéticos") + ")");
+    }
+
+    @OnClose
+    void onClose(WebSocketConnection connection) {
+        Stream stream = streams.remove(connection.id());
+        if (stream != null) {
+            vertx.cancelTimer(stream.timerId);
+            LOG.info("🧪 Simulador AIS: conexão encerrada após " + stream.sent + " frames ("
+                    + stream.skippedTicks + " ticks pulados)");
+        }
+    }
+
+    private List<byte[]> recordedFrames() {
+        if (replayFile.isEmpty()) return null;
+        List<byte[]> frames = recorded;
+        if (frames != null) return frames;
+        try (var lines = Files.lines(replayFile.get(), StandardCharsets.UTF_8)) {
+            frames = lines.filter(l -> !l.isBlank()).map(l -> l.getBytes(StandardCharsets.UTF_8)).toList();
+        } catch (IOException e) {
+            LOG.error("❌ Erro ao ler gravação do simulador: " + e.getMessage());
+            return null;
+        }
+        if (frames.isEmpty()) return null;
+        recorded = frames;
+        return frames;
+    }
+
+    // Uma conexão: navios sintéticos andando em linha reta (ou a gravação em loop), no ritmo configurado
+    private final class Stream {
+        final WebSocketConnection connection;
+        final List<byte[]> recorded;
+        final int rate;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final double minLat, minLon, maxLat, maxLon;
+        final long[] mmsi;
+        final double[] lat, lon, sog, cog;
+        final int[] type;
+        final String[] name, flag, destination;
+        long timerId;
+        double budget;
+        int cursor;
+        long sent, skippedTicks;
+        long lastTick = System.nanoTime();
+
+        Stream(WebSocketConnection connection, double[] box, List<byte[]> recorded) {
+            this.connection = connection;
+            this.recorded = recorded;
+            this.rate = Math.max(1, framesPerSecond) * Math.max(1, Math.min(rateMultiplier, 1000));
+            this.minLat = box[0];
+            this.minLon = box[1];
+            this.maxLat = box[2];
+            this.maxLon = box[3];
+
+            int n = recorded != null ? 0 : Math.max(1, Math.min(vesselCount, MAX_VESSELS_PER_AREA));
+            mmsi = new long[n];
+            lat = new double[n];
+            lon = new double[n];
+            sog = new double[n];
+            cog = new double[n];
+            type = new int[n];
+            name = new String[n];
+            flag = new String[n];
+            destination = new String[n];
+
+            // Semente e MMSIs derivados da área: a mesma frota a cada execução, e uma frota diferente
+            // para cada faixa quando o cliente abre vários shards
+            long area = Math.floorMod(Math.round(minLat * 10) * 31 + Math.round(minLon * 10), 1000);
+            Random random = new Random(42 + area);
+            for (int i = 0; i < n; i++) {
+                mmsi[i] = 710_000_000L + area * 100_000 + i;
+                lat[i] = minLat + random.nextDouble() * (maxLat - minLat);
+                lon[i] = minLon + random.nextDouble() * (maxLon - minLon);
+                sog[i] = random.nextInt(4) == 0 ? 0 : 2 + random.nextDouble() * 18;
+                cog[i] = random.nextDouble() * 360;
+                type[i] = TYPES[random.nextInt(TYPES.length)];
+                name[i] = "SIM " + (i + 1);
+                flag[i] = FLAGS[random.nextInt(FLAGS.length)];
+                destination[i] = DESTINATIONS[random.nextInt(DESTINATIONS.length)];
+            }
+        }
+
+        void tick() {
+            long now = System.nanoTime();
+            budget += rate * ((now - lastTick) / 1e9);
+            lastTick = now;
+            if (inFlight.get() >= maxInFlight) {
+                skippedTicks++;
+                budget = 0;
+                return;
+            }
+
+            int frames = (int) budget;
+            budget -= frames;
+            for (int i = 0; i < frames && connection.isOpen(); i++) {
+                byte[] frame = recorded != null ? recorded.get(cursor++ % recorded.size()) : nextSynthetic();
+                inFlight.incrementAndGet();
+                connection.sendBinary(Buffer.buffer(frame)).subscribe().with(
+                        v -> inFlight.decrementAndGet(),
+                        failure -> inFlight.decrementAndGet());
+                sent++;
+            }
+        }
+
+        private byte[] nextSynthetic() {
+            int i = cursor++ % mmsi.length;
+            advance(i);
+            int heading = (int) Math.round(cog[i]) % 360;
+            String time = ZonedDateTime.now(ZoneOffset.UTC).format(TIME_UTC);
+            String json = "{\"Message\":{\"PositionReport\":{\"Cog\":" + String.format(Locale.ROOT, "%.1f", cog[i])
+                    + ",\"Latitude\":" + lat[i] + ",\"Longitude\":" + lon[i]
+                    + ",\"MessageID\":1,\"NavigationalStatus\":" + (sog[i] == 0 ? 5 : 0)
+                    + ",\"Sog\":" + String.format(Locale.ROOT, "%.1f", sog[i])
+                    + ",\"TrueHeading\":" + (sog[i] == 0 ? 511 : heading)
+                    + ",\"UserID\":" + mmsi[i] + ",\"Valid\":true}},\"MessageType\":\"PositionReport\","
+                    + "\"MetaData\":{\"MMSI\":" + mmsi[i] + ",\"MMSI_String\":" + mmsi[i]
+                    + ",\"ShipName\":\"" + name[i] + "\",\"Flag\":\"" + flag[i] + "\",\"ShipType\":" + type[i]
+                    + ",\"Destination\":\"" + destination[i] + "\",\"latitude\":" + lat[i] + ",\"longitude\":" + lon[i]
+                    + ",\"time_utc\":\"" + time + " +0000 UTC\"}}";
+            return json.getBytes(StandardCharsets.UTF_8);
+        }
+
+        // Anda o trecho desde o último relatório do navio e rebate nas bordas da área
+        private void advance(int i) {
+            if (sog[i] == 0) return;
+            double hours = (double) mmsi.length / rate / 3600;
+            double nm = sog[i] * hours;
+            double rad = Math.toRadians(cog[i]);
+            lat[i] += nm / 60 * Math.cos(rad);
+            lon[i] += nm / 60 * Math.sin(rad) / Math.max(0.2, Math.cos(Math.toRadians(lat[i])));
+            if (lat[i] < minLat || lat[i] > maxLat) {
+                lat[i] = Math.max(minLat, Math.min(maxLat, lat[i]));
+                cog[i] = (540 - cog[i]) % 360;
+            }
+            if (lon[i] < minLon || lon[i] > maxLon) {
+                lon[i] = Math.max(minLon, Math.min(maxLon, lon[i]));
+                cog[i] = 360 - cog[i];
+            }
+        }
+    }
+}
@@ -1,31 +1,22 @@
 package org.htmx;
 
 import io.quarkus.runtime.StartupEvent;
-import io.quarkus.websockets.next.WebSocketConnector;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
-import java.net.URI;
+import org.jboss.logging.Logger;
 
 @ApplicationScoped
 public class AppLifecycle {
 
+    private static final Logger LOG = Logger.getLogger(AppLifecycle.class);
+
     @Inject
-    WebSocketConnector<ShipTrackerClient> connector;
+    IngestLeader leader;
 
     void onStart(@Observes StartupEvent ev) {
-        System.out.println("🚀 Iniciando sistema de rastreamento naval...");
-
-        try {
-            // 🔥 IMPORTANTE: baseUri() deve ser chamado ANTES de connect()
-            connector
-                    .baseUri(URI.create("wss://stream.aisstream.io"))
-                    .connectAndAwait();
-
-            System.out.println("✅ Conexão WebSocket com AISStream iniciada!");
-        } catch (Exception e) {
-            System.err.println("❌ Erro ao conectar com AISStream: " + e.getMessage());
-            e.printStackTrace();
-        }
+        LOG.info("🚀 Iniciando sistema de rastreamento naval...");
+        // Só o líder abre as conexões (em segundo plano; quedas são reconectadas pelo supervisor)
+        leader.start();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+package org.htmx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.websockets.next.OnClose;
+import io.quarkus.websockets.next.OnOpen;
+import io.quarkus.websockets.next.WebSocket;
+import io.quarkus.websockets.next.WebSocketConnection;
+import io.vertx.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Radar em binário para clientes com mapa (milhares de marcadores): mesmos relatórios da ingestão que
+// alimentam o /ships-ws, mas em registros de largura fixa (RadarFrame) e textos por dicionário.
+// Sem assinatura por região: o cliente recebe a costa inteira e filtra do lado dele.
+// Quem conecta recebe o estado completo no próximo tick; depois, a cada tick, só os navios que mudaram
+// e as entradas novas do dicionário.
+@ApplicationScoped
+@WebSocket(path = "/ships-bin")
+public class BinaryRadarServer {
+
+    private static final Logger LOG = Logger.getLogger(BinaryRadarServer.class);
+
+    @Inject
+    FanoutService fanout;
+
+    @Inject
+    VesselStateStore vessels;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    MeterRegistry registry;
+
+    // Mesmo intervalo do radar HTML: as atualizações do tick vão juntas num frame
+    @ConfigProperty(name = "radar.flush-interval-ms", defaultValue = "250")
+    long flushIntervalMs;
+
+    // Cliente que perdeu frames só recebe o snapshot de novo depois que a fila dele esvaziar; se não
+    // esvaziar nesse tempo, é desconectado (reenviar o estado inteiro a cada tick só o afundaria mais)
+    @ConfigProperty(name = "radar.binary.max-behind-ms", defaultValue = "10000")
+    long maxBehindMs;
+
+    private FanoutGroup clients;
+    private final Map<String, Client> clientsById = new ConcurrentHashMap<>();
+
+    // Última atualização de cada navio no tick atual (protegido por "this")
+    private Map<Long, RadarFrame.Vessel> pending = new LinkedHashMap<>();
+
+    // Daqui para baixo, só a thread do flush
+    private final Map<Long, RadarFrame.Vessel> latest = new HashMap<>();
+    private final RadarDictionary dictionary = new RadarDictionary();
+    private long nextPruneAt = System.nanoTime();
+    private Counter frameBytes;
+    private Counter slowDisconnects;
+
+    private static final class Client {
+        final WebSocketConnection connection;
+        final OutboundQueue queue;
+        int knownEntries;
+        long dropped;
+        long behindSince;  // nanoTime da primeira perda ainda não ressincronizada; 0 se em dia
+        volatile boolean needsSnapshot = true;
+
+        Client(WebSocketConnection connection, OutboundQueue queue) {
+            this.connection = connection;
+            this.queue = queue;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        clients = fanout.group("radar-bin");
+        frameBytes = Counter.builder("radar.binary.frame.bytes").baseUnit("bytes")
+                .description("Bytes enfileirados para os clientes do radar binário").register(registry);
+        slowDisconnects = Counter.builder("radar.binary.slow.disconnects")
+                .description("Clientes do radar binário desconectados por não esvaziar a fila em radar.binary.max-behind-ms")
+                .register(registry);
+        vertx.setPeriodic(flushIntervalMs, id -> flush());
+    }
+
+    // Chamado pelo consumidor da ingestão para cada relatório que passou pela supressão
+    public void onReport(PositionReport report) {
+        RadarFrame.Vessel vessel = RadarFrame.Vessel.of(report);
+        synchronized (this) {
+            pending.put(vessel.mmsi, vessel);
+        }
+    }
+
+    @OnOpen
+    void onOpen(WebSocketConnection connection) {
+        clientsById.put(connection.id(), new Client(connection, clients.join(connection)));
+        LOG.info("✅ Novo cliente do radar binário conectado");
+    }
+
+    @OnClose
+    void onClose(WebSocketConnection connection) {
+        clientsById.remove(connection.id());
+        clients.leave(connection);
+    }
+
+    void flush() {
+        Map<Long, RadarFrame.Vessel> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                batch = Map.of();
+            } else {
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+        }
+
+        // Navios que saíram da tabela saem também do estado enviado aos clientes novos
+        if (System.nanoTime() - nextPruneAt >= 0) {
+            latest.keySet().removeIf(mmsi -> !vessels.contains(mmsi));
+            nextPruneAt = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        }
+
+        // Reset verificado antes de cada navio, não só no começo do tick: um tick grande não pode encher o
+        // dicionário (texto sem id chegaria ao cliente como vazio). No máximo um por tick
+        boolean reset = false;
+        for (RadarFrame.Vessel vessel : batch.values()) {
+            latest.put(vessel.mmsi, vessel);
+            if (!reset && dictionary.size() > RadarDictionary.RESET_AT) {
+                reset = resetDictionary();  // já reinterna este navio, que está em latest
+            } else {
+                vessel.intern(dictionary);
+            }
+        }
+        if (dictionary.full()) LOG.warn("⚠️ Dicionário do radar binário cheio mesmo após o reset; textos novos vão vazios");
+        if (clientsById.isEmpty()) return;
+
+        byte[] updates = batch.isEmpty() ? null : RadarFrame.records(new ArrayList<>(batch.values()));
+        List<byte[]> snapshot = null;
+        // Quase todos os clientes conhecem o mesmo prefixo do dicionário: os frames são montados uma vez por prefixo
+        Map<Integer, List<byte[]>> updatesFrom = new HashMap<>();
+        long bytes = 0;
+
+        long now = System.nanoTime();
+        for (Client client : clientsById.values()) {
+            // Frame descartado pela fila (cliente lento) pode ter levado entradas do dicionário: reenvia tudo
+            long dropped = client.queue.droppedCount();
+            if (dropped != client.dropped) {
+                client.dropped = dropped;
+                client.needsSnapshot = true;
+                if (client.behindSince == 0) client.behindSince = now;
+            }
+            // Enquanto a fila não esvazia, nem deltas (o estado do cliente já não vale) nem snapshot
+            if (client.behindSince != 0) {
+                if (client.queue.depth() > 0) {
+                    if (now - client.behindSince > TimeUnit.MILLISECONDS.toNanos(maxBehindMs)) disconnect(client);
+                    continue;
+                }
+                client.behindSince = 0;
+            }
+
+            List<byte[]> frames;
+            if (client.needsSnapshot) {
+                if (snapshot == null) {
+                    snapshot = RadarFrame.frames(RadarFrame.RESET | RadarFrame.SNAPSHOT,
+                            RadarFrame.entries(dictionary, 0), RadarFrame.records(new ArrayList<>(latest.values())));
+                }
+                frames = snapshot;
+                client.needsSnapshot = false;
+            } else if (updates != null) {
+                frames = updatesFrom.computeIfAbsent(client.knownEntries,
+                        from -> RadarFrame.frames(0, RadarFrame.entries(dictionary, from), updates));
+            } else {
+                continue;
+            }
+            client.knownEntries = dictionary.size();
+            for (byte[] frame : frames) {
+                clients.sendBinary(client.connection, frame);
+                bytes += frame.length;
+            }
+        }
+        frameBytes.increment(bytes);
+    }
+
+    // Zera o dicionário e reinterna o estado enviado; todos os clientes recebem RESET|SNAPSHOT no tick
+    private boolean resetDictionary() {
+        dictionary.clear();
+        for (RadarFrame.Vessel vessel : latest.values()) vessel.intern(dictionary);
+        for (Client client : clientsById.values()) client.needsSnapshot = true;
+        return true;
+    }
+
+    private void disconnect(Client client) {
+        clientsById.remove(client.connection.id());
+        slowDisconnects.increment();
+        LOG.warn("⚠️ Cliente do radar binário " + client.connection.id() + " atrasado há mais de " + maxBehindMs
+                + " ms, desconectando");
+        client.connection.close().subscribe().with(v -> {}, t -> {});
+    }
+}
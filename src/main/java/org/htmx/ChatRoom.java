@@ -0,0 +1,67 @@
+package org.htmx;
+
+import io.quarkus.websockets.next.WebSocketConnection;
+
+// Uma sala do chat: conexões próprias (um FanoutGroup só dela) e histórico próprio,
+// então o movimento de uma sala não custa nada às outras.
+public class ChatRoom {
+
+    private final String name;
+    private final FanoutGroup group;
+    private final HistoryRing history;
+    private final int maxConnections;
+    // Removida por ter ficado vazia: ninguém mais entra, quem quiser a sala pega a nova pelo ChatRooms
+    private boolean closed;
+
+    ChatRoom(String name, FanoutGroup group, HistoryRing history, int maxConnections) {
+        this.name = name;
+        this.group = group;
+        this.history = history;
+        this.maxConnections = maxConnections;
+    }
+
+    public String name() { return name; }
+
+    // false se a sala está cheia (ou foi removida); quem entra recebe o histórico num único frame
+    public synchronized boolean join(WebSocketConnection connection, boolean clearScreen) {
+        if (closed || group.size() >= maxConnections) return false;
+        group.join(connection);
+        String replay = history.replay();
+        if (clearScreen) replay = "<div id=\"msgs\" hx-swap-oob=\"innerHTML\"></div>" + replay;
+        if (!replay.isEmpty()) group.send(connection, replay);
+        return true;
+    }
+
+    public void leave(WebSocketConnection connection) {
+        group.leave(connection);
+    }
+
+    // Fecha a sala se não tem ninguém; sob o lock do join, então ninguém entra numa sala já removida
+    synchronized boolean closeIfEmpty() {
+        if (!group.isEmpty()) return false;
+        closed = true;
+        return true;
+    }
+
+    public synchronized boolean isClosed() { return closed; }
+
+    // Mensagem da sala: entra no histórico e vai para todos. Mesmo lock do join: quem entra recebe cada
+    // mensagem uma vez só, no replay ou ao vivo, e o replay chega antes das mensagens ao vivo
+    public synchronized void publish(String html) {
+        history.add(html);
+        group.broadcast(html);
+    }
+
+    // Só para uma conexão (respostas de comandos), sem histórico
+    public void send(WebSocketConnection connection, String html) {
+        group.send(connection, html);
+    }
+
+    public void broadcast(String key, String html) {
+        group.broadcast(key, html);
+    }
+
+    public int connections() { return group.size(); }
+    public boolean isEmpty() { return group.isEmpty(); }
+    public int historySize() { return history.size(); }
+}
@@ -0,0 +1,174 @@
+package org.htmx;
+
+import io.quarkus.qute.Template;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.websockets.next.WebSocketConnection;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+// Salas do chat (por porto, região...). Criadas sob demanda até chat.max-rooms; a que fica vazia é removida
+// (menos a padrão), senão meia dúzia de /sala com nomes aleatórios esgotaria o limite até o restart.
+// Mensagens publicadas aqui também vão pelo ClusterBus: a mesma sala existe em todos os nós.
+// Pelo cluster vão os campos (usuário, texto), nunca HTML: cada nó renderiza e escapa com os próprios templates.
+@ApplicationScoped
+public class ChatRooms {
+
+    private static final Pattern VALID_NAME = Pattern.compile("[a-z0-9-]{1,24}");
+
+    @ConfigProperty(name = "chat.default-room", defaultValue = "geral")
+    String defaultRoom;
+
+    @ConfigProperty(name = "chat.max-rooms", defaultValue = "32")
+    int maxRooms;
+
+    @ConfigProperty(name = "chat.room.max-connections", defaultValue = "200")
+    int maxConnections;
+
+    @ConfigProperty(name = "chat.room.history-size", defaultValue = "100")
+    int historySize;
+
+    // Limite de memória do histórico de cada sala, em caracteres de HTML
+    @ConfigProperty(name = "chat.room.history-max-chars", defaultValue = "65536")
+    long historyMaxChars;
+
+    // Mensagens maiores são cortadas: o histórico de cada sala guarda fragmentos prontos
+    @ConfigProperty(name = "chat.max-message-length", defaultValue = "500")
+    int maxMessageLength;
+
+    @Inject
+    FanoutService fanout;
+
+    @Inject
+    Template message;
+
+    @Inject
+    Template systemmsg;
+
+    @Inject
+    ClusterBus bus;
+
+    // Tipo da mensagem replicada (byte no payload)
+    private static final byte USER_MESSAGE = 1;
+    private static final byte SYSTEM_MESSAGE = 2;
+
+    private final Map<String, ChatRoom> rooms = new ConcurrentHashMap<>();
+
+    void onStart(@Observes StartupEvent ev) {
+        bus.subscribe(ClusterBus.Topic.CHAT, this::onRemoteMessage);
+    }
+
+    public ChatRoom defaultRoom() {
+        return rooms.computeIfAbsent(defaultRoom, this::newRoom);
+    }
+
+    // null se o nome é inválido ou se já existem salas demais
+    public ChatRoom room(String name) {
+        ChatRoom room = rooms.get(name);
+        if (room != null) return room;
+        if (!VALID_NAME.matcher(name).matches()) return null;
+        synchronized (rooms) {
+            if (rooms.size() >= maxRooms && !rooms.containsKey(name)) return null;
+            return rooms.computeIfAbsent(name, this::newRoom);
+        }
+    }
+
+    // Só salas que já existem neste nó (null se não existe)
+    public ChatRoom find(String name) {
+        return rooms.get(name);
+    }
+
+    // Tira a conexão da sala; a última a sair de uma sala que não é a padrão a remove
+    public void leave(ChatRoom room, WebSocketConnection connection) {
+        room.leave(connection);
+        release(room);
+    }
+
+    // Remove a sala (e o grupo de fan-out dela, com as métricas) se ela ficou vazia
+    void release(ChatRoom room) {
+        if (room.name().equals(defaultRoom) || !room.isEmpty()) return;
+        synchronized (rooms) {
+            if (!room.closeIfEmpty() || !rooms.remove(room.name(), room)) return;
+            fanout.remove("chat:" + room.name());
+        }
+    }
+
+    private ChatRoom newRoom(String name) {
+        return new ChatRoom(name, fanout.group("chat:" + name), new HistoryRing(historySize, historyMaxChars), maxConnections);
+    }
+
+    // Mensagem de um usuário para as conexões deste nó e, pelo cluster, para as dos outros
+    public void publishMessage(ChatRoom room, String username, String content) {
+        String text = content.length() > maxMessageLength ? content.substring(0, maxMessageLength) + "…" : content;
+        room.publish(message.data("username", username).data("content", text).render());
+        replicate(room, USER_MESSAGE, username, text);
+    }
+
+    // Aviso do sistema na sala (entrou, saiu...), idem
+    public void publishSystem(ChatRoom room, String text) {
+        room.publish(systemmsg.data("message", text).render());
+        replicate(room, SYSTEM_MESSAGE, "", text);
+    }
+
+    // Nome da sala | tipo | usuário | texto
+    private void replicate(ChatRoom room, byte kind, String username, String text) {
+        if (!bus.clustered()) return;
+        byte[] user = username.getBytes(StandardCharsets.UTF_8);
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        int length = 2 + room.name().length() + 1 + 2 + user.length + 2 + body.length;  // nomes de sala são ASCII
+        if (length > ClusterBus.MAX_PAYLOAD) return;
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        ClusterBus.putString(payload, room.name());
+        payload.put(kind);
+        if (!ClusterBus.putText(payload, user) || !ClusterBus.putText(payload, body)) return;
+        bus.publish(ClusterBus.Topic.CHAT, payload.flip());
+    }
+
+    // Renderizada aqui, como uma mensagem local (o HTML nunca vem de fora). Só para salas que existem neste
+    // nó: sem ninguém nela aqui, não há quem veja, e criar a sala por mensagem remota ocuparia chat.max-rooms
+    private void onRemoteMessage(ByteBuffer payload) {
+        ChatRoom room = find(ClusterBus.getString(payload));
+        if (room == null || room.isClosed()) return;
+        byte kind = payload.get();
+        String username = ClusterBus.getText(payload);
+        String text = ClusterBus.getText(payload);
+        if (text.length() > maxMessageLength) text = text.substring(0, maxMessageLength) + "…";
+        if (kind == USER_MESSAGE) {
+            room.publish(message.data("username", username).data("content", text).render());
+        } else if (kind == SYSTEM_MESSAGE) {
+            room.publish(systemmsg.data("message", text).render());
+        }
+    }
+
+    public Collection<ChatRoom> rooms() { return rooms.values(); }
+
+    public List<String> names() {
+        List<String> names = new ArrayList<>(rooms.keySet());
+        names.sort(null);
+        return names;
+    }
+
+    // Painel lateral e avisos gerais: para todas as salas
+    public void broadcastAll(String key, String html) {
+        for (ChatRoom room : rooms.values()) {
+            if (!room.isEmpty()) room.broadcast(key, html);
+        }
+    }
+
+    public boolean isEmpty() {
+        for (ChatRoom room : rooms.values()) {
+            if (!room.isEmpty()) return false;
+        }
+        return true;
+    }
+}
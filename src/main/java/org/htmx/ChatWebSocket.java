@@ -1,54 +1,129 @@
 package org.htmx;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.qute.Template;
 import io.quarkus.websockets.next.OnClose;
 import io.quarkus.websockets.next.OnOpen;
 import io.quarkus.websockets.next.OnTextMessage;
 import io.quarkus.websockets.next.WebSocket;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+// Callbacks em virtual threads: renderização Qute, String.format e a consulta do /rota bloqueiam,
+// e uma rajada de /navios de muitos usuários enchia o worker pool (compartilhado com o resto da aplicação).
+// Os synchronized do caminho (ChatRoom, filas de saída) não prendem a carrier thread desde o Java 24.
 @ApplicationScoped
 @WebSocket(path = "/chat-ws")
 public class ChatWebSocket {
 
-    private final Map<String, String> sessions = new ConcurrentHashMap<>();
-    private final Map<String, WebSocketConnection> connections = new ConcurrentHashMap<>();
+    private static final Logger LOG = Logger.getLogger(ChatWebSocket.class);
 
-    // Estatísticas de navios para o painel lateral
-    private final AtomicInteger totalShips = new AtomicInteger(0);
-    private final AtomicInteger cargoShips = new AtomicInteger(0);
-    private final AtomicInteger tankerShips = new AtomicInteger(0);
+    private final Map<String, String> sessions = new ConcurrentHashMap<>();
 
-    @Inject Template message;
     @Inject Template systemmsg;
     @Inject Template chatInput;
     @Inject ShipRadarServer radarServer;  // Para acessar navios via comandos
+    @Inject ChatRooms rooms;
+    @Inject ShipStats stats;  // Estatísticas de navios para o painel lateral
+    @Inject TrackHistory history;
+    @Inject MeterRegistry registry;
+
+    // Sala atual de cada conexão (cada sala tem suas conexões e seu histórico)
+    private final Map<String, ChatRoom> roomOf = new ConcurrentHashMap<>();
+
+    // Comandos pesados (/navios, /rota) rodando ao mesmo tempo, somando todos os usuários. Virtual thread
+    // não limita CPU nem conexões do banco: sem esse teto, mil /navios simultâneos disputam os mesmos núcleos.
+    @ConfigProperty(name = "chat.heavy-commands.max-concurrent", defaultValue = "16")
+    int maxConcurrentHeavy;
+
+    // Quanto um comando espera na fila antes de receber "servidor ocupado"
+    @ConfigProperty(name = "chat.heavy-commands.max-wait-ms", defaultValue = "2000")
+    long heavyMaxWaitMs;
+
+    private Semaphore heavyCommands;
+    private Counter heavyRejected;
+    private Counter roomFull;
+
+    private static final int SEARCH_PAGE_SIZE = 5;
+    private static final Set<String> PAGE_WORDS = Set.of("pagina", "página", "pag");
+
+    // Pontos de referência para os comandos espaciais (também são as regiões de assinatura do radar)
+    static final Map<String, double[]> PORTS = new LinkedHashMap<>();
+    static {
+        PORTS.put("santos", new double[]{-23.98, -46.30});
+        PORTS.put("rio", new double[]{-22.89, -43.17});
+        PORTS.put("paranagua", new double[]{-25.50, -48.52});
+        PORTS.put("itajai", new double[]{-26.90, -48.65});
+        PORTS.put("riogrande", new double[]{-32.05, -52.08});
+        PORTS.put("vitoria", new double[]{-20.32, -40.29});
+        PORTS.put("salvador", new double[]{-12.96, -38.51});
+        PORTS.put("suape", new double[]{-8.39, -34.96});
+        PORTS.put("fortaleza", new double[]{-3.71, -38.48});
+        PORTS.put("belem", new double[]{-1.45, -48.50});
+    }
 
     public static class ChatMessage {
         public String type;
         public String value;
     }
 
+    @PostConstruct
+    void init() {
+        heavyCommands = new Semaphore(maxConcurrentHeavy, true);
+        heavyRejected = Counter.builder("chat.heavy-commands.rejected")
+                .description("Comandos pesados recusados por esperar mais que chat.heavy-commands.max-wait-ms")
+                .register(registry);
+        roomFull = Counter.builder("chat.connections.rejected")
+                .description("Conexões recusadas por a sala padrão estar cheia (chat.room.max-connections)")
+                .register(registry);
+    }
+
+    // Quem chega cai na sala padrão e já recebe o histórico dela
     @OnOpen
+    @RunOnVirtualThread
     public void onOpen(WebSocketConnection connection) {
-        connections.put(connection.id(), connection);
+        ChatRoom room = rooms.defaultRoom();
+        if (!room.join(connection, false)) {
+            roomFull.increment();
+            LOG.warn("⚠️ Sala #" + room.name() + " cheia (" + room.connections() + " conexões), recusando conexão");
+            // Fora da sala não há fila de saída: o aviso vai direto (virtual thread, pode esperar) e a conexão fecha
+            try {
+                connection.sendTextAndAwait(systemmsg.data("message",
+                        "⚠️ A sala #" + room.name() + " está cheia. Tente de novo em instantes.").render());
+            } catch (RuntimeException e) {
+                // Cliente já foi embora
+            }
+            connection.close().subscribe().with(v -> {}, t -> {});
+            return;
+        }
+        roomOf.put(connection.id(), room);
+        send(connection, roomLabel(room));
         sendStats(connection);
     }
 
     @OnTextMessage
+    @RunOnVirtualThread
     public void onMessage(ChatMessage data, WebSocketConnection connection) {
         if ("LOGIN".equals(data.type)) {
             String username = data.value;
             sessions.put(connection.id(), username);
-            broadcast(systemmsg.data("message", "🟢 " + username + " entrou na sala").render());
+            publishSystem(connection, "🟢 " + username + " entrou na sala");
             String inputHtml = chatInput.data("username", username).render();
-            connection.sendTextAndAwait(inputHtml);
+            send(connection, inputHtml);
         }
         else if ("MSG".equals(data.type)) {
             String username = sessions.get(connection.id());
@@ -56,11 +131,8 @@ public class ChatWebSocket {
                 if (data.value.startsWith("/")) {
                     handleCommand(data.value, connection, username);
                 } else {
-                    String html = message
-                            .data("username", username)
-                            .data("content", data.value)
-                            .render();
-                    broadcast(html);
+                    ChatRoom room = roomOf.get(connection.id());
+                    if (room != null) rooms.publishMessage(room, username, data.value);
                 }
             }
         }
@@ -70,73 +142,106 @@ public class ChatWebSocket {
     public void onClose(WebSocketConnection connection) {
         String username = sessions.get(connection.id());
         if (username != null) {
-            broadcast(systemmsg.data("message", "🔴 " + username + " saiu").render());
+            publishSystem(connection, "🔴 " + username + " saiu");
         }
         sessions.remove(connection.id());
-        connections.remove(connection.id());
+        ChatRoom room = roomOf.remove(connection.id());
+        if (room != null) rooms.leave(room, connection);
+    }
+
+    // Aviso para a sala da conexão, guardando no histórico
+    private void publishSystem(WebSocketConnection connection, String text) {
+        ChatRoom room = roomOf.get(connection.id());
+        if (room != null) rooms.publishSystem(room, text);
     }
 
-    private void broadcast(String html) {
-        connections.values().forEach(c -> {
-            if (c.isOpen()) c.sendTextAndAwait(html);
-        });
+    // Só para a conexão (respostas de comandos), pela fila da sala em que ela está
+    private void send(WebSocketConnection connection, String html) {
+        ChatRoom room = roomOf.get(connection.id());
+        if (room != null) room.send(connection, html);
     }
 
-    // 🔥 NOVO: Apenas atualiza estatísticas (SEM alerta)
-    public void updateShipStats(String shipType) {
-        totalShips.incrementAndGet();
-        if (shipType.contains("Carga")) cargoShips.incrementAndGet();
-        if (shipType.contains("Petroleiro") || shipType.contains("Tanque")) tankerShips.incrementAndGet();
-        broadcastStats();
+    private static String roomLabel(ChatRoom room) {
+        return "<span id=\"room-name\" hx-swap-oob=\"innerHTML\">#" + room.name() + "</span>";
     }
 
     private void handleCommand(String command, WebSocketConnection connection, String username) {
-        String[] parts = command.toLowerCase().split(" ");
+        String[] parts = command.toLowerCase().trim().split("\\s+");
         String cmd = parts[0];
 
         switch (cmd) {
-            case "/navios" -> {
-                if (parts.length > 1) {
-                    handleNaviosFilter(parts[1], connection);
+            case "/navios" -> heavy(connection, () -> {
+                if (parts.length > 1 && ("perto".equals(parts[1]) || "proximos".equals(parts[1]))) {
+                    handleNaviosSpatial(parts, connection);
+                } else if (parts.length > 1) {
+                    handleNaviosFilter(parts, connection);
                 } else {
                     handleNaviosCommand(connection);
                 }
-            }
+            });
+            case "/rota" -> heavy(connection, () -> handleRota(parts, connection));
+            case "/sala" -> handleSala(parts, connection, username);
             case "/radar" -> {
                 String html = systemmsg
                         .data("message", "🔗 Acesse o radar: <a href='/naval-radar' style='color: #60a5fa;'>http://localhost:8080/naval-radar</a>")
                         .render();
-                connection.sendTextAndAwait(html);
+                send(connection, html);
             }
             case "/ajuda", "/help" -> {
                 String helpMsg = """
                     📋 Comandos disponíveis:
                     /navios - Últimos 5 navios detectados
-                    /navios carga - Navios de carga recentes
-                    /navios santos - Navios perto de Santos
+                    /navios carga - Navios de carga (todos os termos precisam casar)
+                    /navios carga santos pagina 2 - Busca combinada, segunda página
+                    /navios santos - Navios com destino ou nome Santos
+                    /navios perto -23.98 -46.30 20km - Navios num raio (lat lon ou porto)
+                    /navios proximos rio 5 - Os 5 navios mais próximos do ponto
+                    /rota 710012345 6 - Trajeto do navio nas últimas 6 horas
+                    /sala - Lista as salas | /sala santos - Muda de sala
                     /radar - Link para o radar naval
                     /ajuda - Mostra esta mensagem
                     """;
                 String html = systemmsg.data("message", helpMsg).render();
-                connection.sendTextAndAwait(html);
+                send(connection, html);
             }
             default -> {
                 String html = systemmsg
                         .data("message", "❌ Comando desconhecido: " + cmd + ". Digite /ajuda para ver comandos disponíveis.")
                         .render();
-                connection.sendTextAndAwait(html);
+                send(connection, html);
             }
         }
     }
 
+    // Espera uma vaga entre os comandos pesados; a espera bloqueia só a virtual thread deste usuário
+    private void heavy(WebSocketConnection connection, Runnable command) {
+        boolean acquired;
+        try {
+            acquired = heavyCommands.tryAcquire(heavyMaxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!acquired) {
+            heavyRejected.increment();
+            send(connection, systemmsg.data("message", "⏳ Servidor ocupado, tente o comando de novo em instantes.").render());
+            return;
+        }
+        try {
+            command.run();
+        } finally {
+            heavyCommands.release();
+        }
+    }
+
     private void handleNaviosCommand(WebSocketConnection connection) {
-        var ships = radarServer.getRecentShips();
+        var ships = radarServer.getRecentShips(5);
 
         if (ships.isEmpty()) {
             String html = systemmsg
                     .data("message", "📭 Nenhum navio detectado ainda.")
                     .render();
-            connection.sendTextAndAwait(html);
+            send(connection, html);
             return;
         }
 
@@ -148,77 +253,187 @@ public class ChatWebSocket {
         }
 
         String html = systemmsg.data("message", msg.toString()).render();
-        connection.sendTextAndAwait(html);
+        send(connection, html);
     }
 
-    private void handleNaviosFilter(String filter, WebSocketConnection connection) {
-        var ships = radarServer.getRecentShips();
+    // /navios perto <lat> <lon|porto> [raio] e /navios proximos <lat> <lon|porto> [k]
+    private void handleNaviosSpatial(String[] parts, WebSocketConnection connection) {
+        boolean nearest = "proximos".equals(parts[1]);
+        double[] point = null;
+        int next = 2;
 
-        var filtered = ships.stream()
-                .filter(ship -> ship.shipType.toLowerCase().contains(filter)
-                        || ship.location.toLowerCase().contains(filter)
-                        || ship.name.toLowerCase().contains(filter))
-                .limit(5)
-                .toList();
+        if (parts.length > 2 && PORTS.containsKey(parts[2])) {
+            point = PORTS.get(parts[2]);
+            next = 3;
+        } else if (parts.length > 3) {
+            try {
+                point = new double[]{Double.parseDouble(parts[2]), Double.parseDouble(parts[3])};
+                next = 4;
+            } catch (NumberFormatException ignored) {
+                // cai na mensagem de uso abaixo
+            }
+        }
 
-        if (filtered.isEmpty()) {
+        if (point == null) {
             String html = systemmsg
-                    .data("message", "📭 Nenhum navio encontrado para: " + filter)
+                    .data("message", "❌ Uso: /navios " + parts[1] + " <lat> <lon> " + (nearest ? "[quantidade]" : "[raio km]")
+                            + "\n   ou: /navios " + parts[1] + " <porto>. Portos: " + String.join(", ", PORTS.keySet()))
                     .render();
-            connection.sendTextAndAwait(html);
+            send(connection, html);
             return;
         }
 
-        StringBuilder msg = new StringBuilder("🚢 Navios filtrados por '" + filter + "':\n\n");
-        for (int i = 0; i < filtered.size(); i++) {
-            var ship = filtered.get(i);
+        String arg = parts.length > next ? parts[next].replace("km", "") : null;
+        List<VesselHit> hits;
+        String title;
+        try {
+            if (nearest) {
+                int k = arg == null ? 5 : Math.max(1, Math.min(Integer.parseInt(arg), 20));
+                hits = radarServer.findNearestShips(point[0], point[1], k);
+                title = "🚢 " + k + " navios mais próximos de " + String.format("%.2f, %.2f", point[0], point[1]);
+            } else {
+                double radiusKm = arg == null ? 20 : Math.min(Double.parseDouble(arg), VesselQueryResource.MAX_RADIUS_KM);
+                hits = radarServer.findShipsNear(point[0], point[1], radiusKm);
+                title = "🚢 Navios a até " + String.format("%.0f", radiusKm) + " km de " + String.format("%.2f, %.2f", point[0], point[1]);
+            }
+        } catch (NumberFormatException e) {
+            send(connection, systemmsg.data("message", "❌ Valor inválido: " + arg).render());
+            return;
+        }
+
+        if (hits.isEmpty()) {
+            send(connection, systemmsg.data("message", "📭 Nenhum navio nessa área.").render());
+            return;
+        }
+
+        StringBuilder msg = new StringBuilder(title).append(" (").append(hits.size()).append("):\n\n");
+        for (int i = 0; i < Math.min(10, hits.size()); i++) {
+            var hit = hits.get(i);
+            msg.append(String.format("%d. %s %s\n   📍 %s | MMSI: %s | 📏 %s\n",
+                    i + 1, hit.ship().shipType, hit.ship().name, hit.ship().location, hit.ship().mmsi, hit.distanceLabel()));
+        }
+
+        send(connection, systemmsg.data("message", msg.toString()).render());
+    }
+
+    // /rota <mmsi> [horas]: consulta o histórico gravado (roda na virtual thread do usuário, fora do feed ao vivo)
+    private void handleRota(String[] parts, WebSocketConnection connection) {
+        if (!history.isEnabled()) {
+            send(connection, systemmsg.data("message", "⚠️ Histórico de posições desativado.").render());
+            return;
+        }
+
+        long mmsi;
+        int hours;
+        try {
+            if (parts.length < 2) throw new NumberFormatException();
+            mmsi = Long.parseLong(parts[1]);
+            hours = parts.length > 2 ? Math.max(1, Math.min(Integer.parseInt(parts[2]), 72)) : 6;
+        } catch (NumberFormatException e) {
+            send(connection, systemmsg.data("message", "❌ Uso: /rota <mmsi> [horas]").render());
+            return;
+        }
+
+        List<PositionRecord> track = history.track(mmsi, hours);
+        if (track.isEmpty()) {
+            send(connection, systemmsg
+                    .data("message", "📭 Nenhuma posição do MMSI " + mmsi + " nas últimas " + hours + " h.")
+                    .render());
+            return;
+        }
+
+        PositionRecord first = track.get(0), last = track.get(track.size() - 1);
+        double distanceKm = 0;
+        for (int i = 1; i < track.size(); i++) {
+            distanceKm += VesselGrid.distanceKm(track.get(i - 1).lat, track.get(i - 1).lon, track.get(i).lat, track.get(i).lon);
+        }
+
+        String msg = String.format("🧭 Rota de %s (MMSI %d) nas últimas %d h:\n\n"
+                        + "   %d posições | %.1f km percorridos\n"
+                        + "   Início: %.4f, %.4f\n   Última: %.4f, %.4f",
+                last.name, mmsi, hours, track.size(), distanceKm, first.lat, first.lon, last.lat, last.lon);
+        send(connection, systemmsg.data("message", msg).render());
+    }
+
+    // /navios <termos...> [pagina N]: todos os termos precisam casar (nome, tipo, bandeira, destino, localização)
+    private void handleNaviosFilter(String[] parts, WebSocketConnection connection) {
+        int page = 1;
+        StringBuilder query = new StringBuilder();
+        for (int i = 1; i < parts.length; i++) {
+            if (PAGE_WORDS.contains(parts[i]) && i + 1 < parts.length && parts[i + 1].matches("\\d{1,6}")) {
+                page = Integer.parseInt(parts[++i]);
+            } else {
+                query.append(parts[i]).append(' ');
+            }
+        }
+
+        String filter = query.toString().trim();
+        var result = radarServer.searchShips(filter, page, SEARCH_PAGE_SIZE);
+        send(connection, systemmsg.data("message", naviosFilterMessage(result, filter)).render());
+    }
+
+    // Parte pura do /navios <filtro> (sem template nem envio), separada para os benchmarks
+    static String naviosFilterMessage(VesselStateStore.SearchPage result, String filter) {
+        if (result.total() == 0) return "📭 Nenhum navio encontrado para: " + filter;
+
+        StringBuilder msg = new StringBuilder(String.format("🚢 Navios filtrados por '%s' (%d encontrados, página %d de %d):\n\n",
+                filter, result.total(), result.page(), result.pageCount()));
+        int first = (result.page() - 1) * SEARCH_PAGE_SIZE;
+        for (int i = 0; i < result.ships().size(); i++) {
+            var ship = result.ships().get(i);
             msg.append(String.format("%d. %s %s\n   📍 %s | MMSI: %s\n",
-                    i + 1, ship.shipType, ship.name, ship.location, ship.mmsi));
+                    first + i + 1, ship.shipType, ship.name, ship.location, ship.mmsi));
+        }
+        if (result.page() < result.pageCount()) {
+            msg.append("\n➡️ /navios ").append(filter).append(" pagina ").append(result.page() + 1);
         }
+        return msg.toString();
+    }
 
-        String html = systemmsg.data("message", msg.toString()).render();
-        connection.sendTextAndAwait(html);
+    // /sala lista as salas; /sala <nome> troca de sala (sai da atual, entra na nova e recebe o histórico)
+    private void handleSala(String[] parts, WebSocketConnection connection, String username) {
+        ChatRoom current = roomOf.get(connection.id());
+        if (parts.length < 2) {
+            StringBuilder msg = new StringBuilder("🏠 Salas (você está em #" + (current != null ? current.name() : "?") + "):\n\n");
+            for (String name : rooms.names()) {
+                ChatRoom room = rooms.find(name);
+                if (room == null) continue;
+                msg.append(String.format("#%s - %d conectados, %d mensagens\n", name, room.connections(), room.historySize()));
+            }
+            msg.append("\nPortos: ").append(String.join(", ", PORTS.keySet()));
+            send(connection, systemmsg.data("message", msg.toString()).render());
+            return;
+        }
+
+        String name = parts[1].startsWith("#") ? parts[1].substring(1) : parts[1];
+        // Entra na nova antes de sair da atual: se estiver cheia, continua onde está.
+        // Se a sala foi removida (ficou vazia) entre achar e entrar, pega a recriada
+        ChatRoom target;
+        boolean joined;
+        do {
+            target = rooms.room(name);
+            if (target == null) {
+                send(connection, systemmsg.data("message", "❌ Sala inválida ou limite de salas atingido: " + name).render());
+                return;
+            }
+            if (target == current) return;
+            joined = target.join(connection, true);
+        } while (!joined && target.isClosed());
+        if (!joined) {
+            send(connection, systemmsg.data("message", "⚠️ A sala #" + target.name() + " está cheia").render());
+            return;
+        }
+        roomOf.put(connection.id(), target);
+        if (current != null) {
+            rooms.leave(current, connection);
+            rooms.publishSystem(current, "🔴 " + username + " foi para #" + target.name());
+        }
+        target.send(connection, roomLabel(target));
+        target.send(connection, stats.render());
+        rooms.publishSystem(target, "🟢 " + username + " entrou na sala");
     }
 
     private void sendStats(WebSocketConnection connection) {
-        String statsHtml = """
-            <div id="ship-stats" hx-swap-oob="innerHTML">
-                <div class="stat-item">
-                    <span class="stat-value">%d</span>
-                    <span class="stat-label">Total</span>
-                </div>
-                <div class="stat-item">
-                    <span class="stat-value">%d</span>
-                    <span class="stat-label">Carga</span>
-                </div>
-                <div class="stat-item">
-                    <span class="stat-value">%d</span>
-                    <span class="stat-label">Petroleiros</span>
-                </div>
-            </div>
-            """.formatted(totalShips.get(), cargoShips.get(), tankerShips.get());
-
-        connection.sendTextAndAwait(statsHtml);
-    }
-
-    private void broadcastStats() {
-        String statsHtml = """
-            <div id="ship-stats" hx-swap-oob="innerHTML">
-                <div class="stat-item">
-                    <span class="stat-value">%d</span>
-                    <span class="stat-label">Total</span>
-                </div>
-                <div class="stat-item">
-                    <span class="stat-value">%d</span>
-                    <span class="stat-label">Carga</span>
-                </div>
-                <div class="stat-item">
-                    <span class="stat-value">%d</span>
-                    <span class="stat-label">Petroleiros</span>
-                </div>
-            </div>
-            """.formatted(totalShips.get(), cargoShips.get(), tankerShips.get());
-
-        broadcast(statsHtml);
+        send(connection, stats.render());
     }
 }
\ No newline at end of file
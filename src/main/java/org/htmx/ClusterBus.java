@@ -0,0 +1,269 @@
+package org.htmx;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Barramento entre instâncias: o que é publicado uma vez (relatórios decodificados pelo líder,
+// mensagens do chat) chega a todos os outros nós, e cada nó faz o fan-out para as suas conexões.
+//   LOCAL     → um nó só, nada sai do processo (padrão)
+//   MULTICAST → datagramas UDP num grupo multicast (mesmo host ou mesma rede local)
+// Datagrama: long nó de origem | long sequência | byte tópico | payload | HMAC-SHA256 (32 bytes).
+// O HMAC usa o segredo compartilhado cluster.secret: qualquer um na rede consegue mandar para o grupo, e o
+// que não confere (ou repete uma sequência já vista daquele nó) é descartado e contado em cluster_bus_rejected.
+// Não há retransmissão: perda é só contada (cluster_bus_lost), o próximo relatório do navio corrige.
+@ApplicationScoped
+public class ClusterBus {
+
+    private static final Logger LOG = Logger.getLogger(ClusterBus.class);
+
+    public enum Transport { LOCAL, MULTICAST }
+
+    // O byte do tópico no datagrama é o ordinal: só acrescentar no fim
+    public enum Topic { REPORTS, CHAT }
+
+    private static final int HEADER_BYTES = 8 + 8 + 1;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_BYTES = 32;
+    // Maior payload UDP em IPv4 menos cabeçalho e HMAC
+    static final int MAX_PAYLOAD = 65_507 - HEADER_BYTES - MAC_BYTES;
+
+    @ConfigProperty(name = "cluster.transport", defaultValue = "LOCAL")
+    Transport transport;
+
+    @ConfigProperty(name = "cluster.multicast.group", defaultValue = "239.255.42.99")
+    String groupAddress;
+
+    @ConfigProperty(name = "cluster.multicast.port", defaultValue = "45599")
+    int port;
+
+    // Interface do grupo (ex.: eth0); sem ela, a de loopback: todos os nós no mesmo host
+    @ConfigProperty(name = "cluster.multicast.interface")
+    Optional<String> interfaceName;
+
+    @ConfigProperty(name = "cluster.multicast.ttl", defaultValue = "1")
+    int ttl;
+
+    // Obrigatório com MULTICAST; o mesmo em todos os nós
+    @ConfigProperty(name = "cluster.secret")
+    Optional<String> secret;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+    private final AtomicLong sequence = new AtomicLong();
+    @SuppressWarnings("unchecked")
+    private final Consumer<ByteBuffer>[] handlers = new Consumer[Topic.values().length];
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private MulticastSocket socket;
+    private InetSocketAddress group;
+    private SecretKeySpec key;
+    private Mac senderMac;  // protegido por ele mesmo (Mac não é thread-safe)
+    private Thread receiver;
+    private volatile boolean running;
+
+    @PostConstruct
+    void init() {
+        FunctionCounter.builder("cluster.bus.sent", sent, LongAdder::sum).register(registry);
+        FunctionCounter.builder("cluster.bus.received", received, LongAdder::sum).register(registry);
+        FunctionCounter.builder("cluster.bus.lost", lost, LongAdder::sum)
+                .description("Datagramas de outros nós que não chegaram (buracos na sequência)").register(registry);
+        FunctionCounter.builder("cluster.bus.rejected", rejected, LongAdder::sum)
+                .description("Datagramas descartados: HMAC inválido, curtos demais ou sequência repetida").register(registry);
+        if (transport != Transport.MULTICAST) return;
+
+        if (secret.isEmpty() || secret.get().isBlank()) {
+            throw new IllegalStateException("❌ cluster.secret é obrigatório com cluster.transport=MULTICAST");
+        }
+        key = new SecretKeySpec(secret.get().getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+        senderMac = newMac();
+
+        try {
+            NetworkInterface nif = interfaceName.isPresent()
+                    ? NetworkInterface.getByName(interfaceName.get())
+                    : NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+            if (nif == null) throw new SocketException("interface de rede não encontrada: " + interfaceName.orElse("loopback"));
+
+            group = new InetSocketAddress(InetAddress.getByName(groupAddress), port);
+            socket = new MulticastSocket(port);
+            socket.setOption(StandardSocketOptions.IP_MULTICAST_IF, nif);
+            socket.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);  // outros nós no mesmo host
+            socket.setTimeToLive(ttl);
+            socket.setReceiveBufferSize(4 * 1024 * 1024);
+            socket.joinGroup(group, nif);
+        } catch (IOException e) {
+            throw new IllegalStateException("❌ Não foi possível entrar no grupo multicast " + groupAddress + ":" + port, e);
+        }
+
+        running = true;
+        receiver = new Thread(this::receiveLoop, "cluster-bus");
+        receiver.setDaemon(true);
+        receiver.start();
+        LOG.info("🔗 Cluster: nó " + Long.toHexString(nodeId) + " no grupo " + groupAddress + ":" + port);
+    }
+
+    @PreDestroy
+    void close() {
+        running = false;
+        if (socket != null) socket.close();
+    }
+
+    public boolean clustered() {
+        return transport == Transport.MULTICAST;
+    }
+
+    public long nodeId() {
+        return nodeId;
+    }
+
+    // O handler roda na thread do barramento e o buffer é reaproveitado: copie o que precisar guardar
+    public void subscribe(Topic topic, Consumer<ByteBuffer> handler) {
+        handlers[topic.ordinal()] = handler;
+    }
+
+    // Envia payload[position, limit) aos outros nós; com LOCAL não faz nada
+    public void publish(Topic topic, ByteBuffer payload) {
+        if (socket == null) return;
+        int length = payload.remaining();
+        if (length > MAX_PAYLOAD) throw new IllegalArgumentException("payload grande demais: " + length + " bytes");
+
+        ByteBuffer datagram = ByteBuffer.allocate(HEADER_BYTES + length + MAC_BYTES);
+        // Sequência, HMAC e envio sob o mesmo lock: os datagramas saem em ordem de sequência
+        // (o receptor descarta sequência repetida ou mais velha que a última daquele nó)
+        synchronized (senderMac) {
+            datagram.putLong(nodeId).putLong(sequence.incrementAndGet()).put((byte) topic.ordinal()).put(payload);
+            senderMac.update(datagram.array(), 0, datagram.position());
+            datagram.put(senderMac.doFinal());
+            try {
+                socket.send(new DatagramPacket(datagram.array(), datagram.position(), group));
+                sent.increment();
+            } catch (IOException e) {
+                if (running) LOG.warn("⚠️ Cluster: falha ao publicar em " + topic + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("❌ Cluster: " + MAC_ALGORITHM + " indisponível", e);
+        }
+    }
+
+    // HMAC de datagram[0, length - MAC_BYTES) comparado em tempo constante com os últimos MAC_BYTES
+    private static boolean authentic(Mac mac, byte[] datagram, int length) {
+        int signed = length - MAC_BYTES;
+        mac.update(datagram, 0, signed);
+        return MessageDigest.isEqual(mac.doFinal(), Arrays.copyOfRange(datagram, signed, length));
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[HEADER_BYTES + MAX_PAYLOAD];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        // Última sequência vista de cada nó (só esta thread acessa)
+        Map<Long, Long> lastSequence = new HashMap<>();
+        Mac mac = newMac();
+
+        while (running) {
+            try {
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+            } catch (IOException e) {
+                if (running) LOG.warn("⚠️ Cluster: erro ao receber: " + e.getMessage());
+                continue;
+            }
+            int length = packet.getLength();
+            if (length < HEADER_BYTES + MAC_BYTES || !authentic(mac, buffer, length)) {
+                rejected.increment();
+                continue;
+            }
+
+            ByteBuffer datagram = ByteBuffer.wrap(buffer, 0, length - MAC_BYTES);
+            long origin = datagram.getLong();
+            if (origin == nodeId) continue;  // o próprio datagrama, de volta pelo loopback
+            long seq = datagram.getLong();
+            int topic = datagram.get();
+
+            // Datagrama autêntico repetido (gravado e reenviado por alguém na rede): descarta
+            Long previous = lastSequence.get(origin);
+            if (previous != null && seq <= previous) {
+                rejected.increment();
+                continue;
+            }
+            lastSequence.put(origin, seq);
+            if (previous != null && seq > previous + 1) lost.add(seq - previous - 1);
+            received.increment();
+
+            Consumer<ByteBuffer> handler = topic >= 0 && topic < handlers.length ? handlers[topic] : null;
+            if (handler == null) continue;
+            try {
+                handler.accept(datagram.slice());
+            } catch (RuntimeException e) {
+                LOG.error("❌ Cluster: erro ao tratar datagrama do tópico " + Topic.values()[topic], e);
+            }
+        }
+    }
+
+    // Strings do payload: short tamanho + UTF-8 (cortado em 255 bytes, como no journal)
+    static void putString(ByteBuffer buf, String value) {
+        byte[] bytes = AisJournal.utf8(value);
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
+    static String getString(ByteBuffer buf) {
+        return AisJournal.getString(buf);
+    }
+
+    // Textos longos (mensagens do chat): u16 tamanho + UTF-8, sem corte; false se não couber em 64 KB
+    static boolean putText(ByteBuffer buf, byte[] utf8) {
+        if (utf8.length > 0xFFFF || buf.remaining() < 2 + utf8.length) return false;
+        buf.putShort((short) utf8.length);
+        buf.put(utf8);
+        return true;
+    }
+
+    static String getText(ByteBuffer buf) {
+        int length = buf.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
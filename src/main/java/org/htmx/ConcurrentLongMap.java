@@ -0,0 +1,219 @@
+package org.htmx;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+// Mapa concorrente com chave long primitiva (MMSI), sem boxing.
+// Endereçamento aberto com sondagem linear, dividido em faixas (stripes) com lock próprio.
+public final class ConcurrentLongMap<V> {
+
+    public interface Remapper<V> { V apply(long key, V current); }
+    public interface Visitor<V> { void accept(long key, V value); }
+    public interface Predicate<V> { boolean test(long key, V value); }
+
+    // MMSI nunca é negativo, então MIN_VALUE marca slot vazio
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final Stripe<V>[] stripes;
+    private final int stripeShift;
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongMap(int stripeCount, int initialCapacityPerStripe) {
+        int n = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) stripes[i] = new Stripe<>(initialCapacityPerStripe);
+        stripeShift = 32 - Integer.numberOfTrailingZeros(n);
+    }
+
+    public ConcurrentLongMap() {
+        this(32, 64);
+    }
+
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private Stripe<V> stripeFor(int hash) {
+        return stripes.length == 1 ? stripes[0] : stripes[hash >>> stripeShift];
+    }
+
+    public V get(long key) {
+        int h = hash(key);
+        Stripe<V> s = stripeFor(h);
+        synchronized (s) {
+            int i = s.indexOf(key, h);
+            return i >= 0 ? s.values[i] : null;
+        }
+    }
+
+    // Lê o valor sob o lock da faixa (ex.: para tirar uma cópia consistente)
+    public <R> R read(long key, Function<? super V, ? extends R> reader) {
+        int h = hash(key);
+        Stripe<V> s = stripeFor(h);
+        synchronized (s) {
+            int i = s.indexOf(key, h);
+            return i >= 0 ? reader.apply(s.values[i]) : null;
+        }
+    }
+
+    public V put(long key, V value) {
+        return compute(key, (k, old) -> value);
+    }
+
+    // Atualiza sob o lock da faixa; retornar null remove a entrada
+    public V compute(long key, Remapper<V> remapper) {
+        int h = hash(key);
+        Stripe<V> s = stripeFor(h);
+        synchronized (s) {
+            int i = s.indexOf(key, h);
+            V current = i >= 0 ? s.values[i] : null;
+            V next = remapper.apply(key, current);
+            if (next == null) {
+                if (i >= 0) s.removeAt(i);
+            } else if (i >= 0) {
+                s.values[i] = next;
+            } else {
+                s.insert(-1 - i, key, next);
+            }
+            return next;
+        }
+    }
+
+    public V remove(long key) {
+        int h = hash(key);
+        Stripe<V> s = stripeFor(h);
+        synchronized (s) {
+            int i = s.indexOf(key, h);
+            if (i < 0) return null;
+            V old = s.values[i];
+            s.removeAt(i);
+            return old;
+        }
+    }
+
+    public int size() {
+        int total = 0;
+        for (Stripe<V> s : stripes) {
+            synchronized (s) {
+                total += s.size;
+            }
+        }
+        return total;
+    }
+
+    public boolean isEmpty() { return size() == 0; }
+
+    // Visita cada entrada sob o lock da sua faixa; o visitor não deve alterar o mapa
+    public void forEach(Visitor<? super V> visitor) {
+        for (Stripe<V> s : stripes) {
+            synchronized (s) {
+                for (int i = 0; i < s.keys.length; i++) {
+                    if (s.keys[i] != EMPTY) visitor.accept(s.keys[i], s.values[i]);
+                }
+            }
+        }
+    }
+
+    public int removeIf(Predicate<? super V> predicate) {
+        int removed = 0;
+        for (Stripe<V> s : stripes) {
+            synchronized (s) {
+                int i = 0;
+                while (i < s.keys.length) {
+                    // removeAt pode puxar outra entrada para o slot i, então só avança se não removeu
+                    if (s.keys[i] != EMPTY && predicate.test(s.keys[i], s.values[i])) {
+                        s.removeAt(i);
+                        removed++;
+                    } else {
+                        i++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    public void clear() {
+        for (Stripe<V> s : stripes) {
+            synchronized (s) {
+                Arrays.fill(s.keys, EMPTY);
+                Arrays.fill(s.values, null);
+                s.size = 0;
+            }
+        }
+    }
+
+    private static final class Stripe<V> {
+        long[] keys;
+        V[] values;
+        int size;
+
+        Stripe(int capacity) {
+            allocate(Integer.highestOneBit(Math.max(4, capacity - 1) << 1));
+        }
+
+        @SuppressWarnings("unchecked")
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            values = (V[]) new Object[capacity];
+        }
+
+        // >= 0: slot da chave; < 0: -(slot livre) - 1
+        int indexOf(long key, int hash) {
+            int mask = keys.length - 1;
+            int i = hash & mask;
+            while (true) {
+                long k = keys[i];
+                if (k == key) return i;
+                if (k == EMPTY) return -1 - i;
+                i = (i + 1) & mask;
+            }
+        }
+
+        void insert(int slot, long key, V value) {
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size * 2 > keys.length) resize();
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            V[] oldValues = values;
+            allocate(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = -1 - indexOf(oldKeys[i], hash(oldKeys[i]));
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        // Remoção com deslocamento para trás: mantém as cadeias de sondagem sem tombstones
+        void removeAt(int hole) {
+            int mask = keys.length - 1;
+            int j = hole;
+            while (true) {
+                j = (j + 1) & mask;
+                long k = keys[j];
+                if (k == EMPTY) break;
+                int ideal = hash(k) & mask;
+                boolean reachable = hole <= j ? (ideal > hole && ideal <= j) : (ideal > hole || ideal <= j);
+                if (!reachable) {
+                    keys[hole] = k;
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = EMPTY;
+            values[hole] = null;
+            size--;
+        }
+    }
+}
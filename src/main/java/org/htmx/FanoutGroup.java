@@ -0,0 +1,73 @@
+package org.htmx;
+
+import io.quarkus.websockets.next.WebSocketConnection;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Conjunto de conexões de um endpoint (radar, chat...) com uma fila de saída por conexão
+public class FanoutGroup {
+
+    private final String name;
+    private final FanoutService service;
+    private final OutboundQueue.Meters meters;
+    private final Map<String, OutboundQueue> queues = new ConcurrentHashMap<>();
+
+    FanoutGroup(String name, FanoutService service, OutboundQueue.Meters meters) {
+        this.name = name;
+        this.service = service;
+        this.meters = meters;
+    }
+
+    public String name() { return name; }
+
+    public OutboundQueue join(WebSocketConnection connection) {
+        return queues.computeIfAbsent(connection.id(), id -> service.newQueue(connection, meters));
+    }
+
+    public void leave(WebSocketConnection connection) {
+        OutboundQueue queue = queues.remove(connection.id());
+        if (queue != null) queue.close();
+    }
+
+    // Envio direto para uma conexão, respeitando a ordem dos broadcasts já enfileirados
+    public void send(WebSocketConnection connection, String text) {
+        OutboundQueue queue = queues.get(connection.id());
+        if (queue != null) queue.offer(null, text);
+    }
+
+    public void sendBinary(WebSocketConnection connection, byte[] frame) {
+        OutboundQueue queue = queues.get(connection.id());
+        if (queue != null) queue.offerBinary(frame);
+    }
+
+    public void broadcast(String text) {
+        broadcast(null, text);
+    }
+
+    // Só enfileira: retorna imediatamente, independente de quantos terminais existem
+    public void broadcast(String key, String text) {
+        for (OutboundQueue queue : queues.values()) {
+            if (queue.connection().isOpen()) queue.offer(key, text);
+        }
+    }
+
+    public boolean isEmpty() { return queues.isEmpty(); }
+    public int size() { return queues.size(); }
+    public Collection<OutboundQueue> queues() { return queues.values(); }
+
+    // Frames enfileirados e ainda não enviados, somando todas as conexões
+    public int totalDepth() {
+        int total = 0;
+        for (OutboundQueue queue : queues.values()) total += queue.depth();
+        return total;
+    }
+
+    // Idade do frame pendente mais antigo entre todas as conexões (a conexão mais atrasada)
+    public long maxLagMillis() {
+        long max = 0;
+        for (OutboundQueue queue : queues.values()) max = Math.max(max, queue.lagMillis());
+        return max;
+    }
+}
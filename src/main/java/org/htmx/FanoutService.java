@@ -0,0 +1,67 @@
+package org.htmx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.websockets.next.WebSocketConnection;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Camada de fan-out compartilhada pelos endpoints WebSocket (/ships-ws e /chat-ws)
+@ApplicationScoped
+public class FanoutService {
+
+    @ConfigProperty(name = "fanout.queue-capacity", defaultValue = "256")
+    int queueCapacity;
+
+    @ConfigProperty(name = "fanout.overflow-policy", defaultValue = "DROP_OLDEST")
+    OverflowPolicy overflowPolicy;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final Map<String, FanoutGroup> groups = new ConcurrentHashMap<>();
+
+    public FanoutGroup group(String name) {
+        return groups.computeIfAbsent(name, this::newGroup);
+    }
+
+    // Métricas por grupo (tag "group"): clientes, fila, atraso de envio e frames perdidos
+    private FanoutGroup newGroup(String name) {
+        OutboundQueue.Meters meters = new OutboundQueue.Meters(
+                Counter.builder("fanout.frames.dropped").tag("group", name).register(registry),
+                Counter.builder("fanout.frames.coalesced").tag("group", name).register(registry),
+                Timer.builder("fanout.send.lag").tag("group", name)
+                        .description("Tempo entre enfileirar um frame e concluir o envio")
+                        .publishPercentileHistogram().register(registry));
+        FanoutGroup group = new FanoutGroup(name, this, meters);
+
+        Gauge.builder("fanout.clients", group, FanoutGroup::size).tag("group", name).register(registry);
+        Gauge.builder("fanout.queue.depth", group, FanoutGroup::totalDepth).tag("group", name).register(registry);
+        Gauge.builder("fanout.queue.lag.max", group, FanoutGroup::maxLagMillis).tag("group", name)
+                .baseUnit("milliseconds").register(registry);
+        return group;
+    }
+
+    public Collection<FanoutGroup> groups() { return groups.values(); }
+
+    // Grupo que não vai mais ser usado (sala do chat removida): sai do mapa e leva as métricas junto
+    public void remove(String name) {
+        if (groups.remove(name) == null) return;
+        for (Meter meter : List.copyOf(registry.getMeters())) {
+            if (name.equals(meter.getId().getTag("group"))) registry.remove(meter);
+        }
+    }
+
+    OutboundQueue newQueue(WebSocketConnection connection, OutboundQueue.Meters meters) {
+        return new OutboundQueue(connection, queueCapacity, overflowPolicy, meters);
+    }
+}
@@ -0,0 +1,74 @@
+package org.htmx;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Histórico recente de uma sala: anel limitado de fragmentos já renderizados, sem locks.
+// Dois limites: no máximo "capacity" mensagens e "maxChars" caracteres somados; a mais antiga sai primeiro.
+// Com escritores concorrentes, um replay pode pular ou reordenar a mensagem que está sendo escrita.
+final class HistoryRing {
+
+    // A sequência vai junto com o fragmento: quem descarta confere que o slot ainda é o da sequência
+    // que saiu (o anel pode ter dado a volta e o slot já ter a mensagem mais nova)
+    private record Entry(long seq, String html) {}
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final int capacity;
+    private final long maxChars;
+
+    private final AtomicLong head = new AtomicLong();   // próxima sequência a escrever
+    private final AtomicLong tail = new AtomicLong();   // sequência mais antiga ainda no histórico
+    private final AtomicLong chars = new AtomicLong();  // soma dos tamanhos dos fragmentos guardados
+
+    HistoryRing(int capacity, long maxChars) {
+        // O anel é potência de 2 (>= capacity); o limite de mensagens é o capacity exato
+        this.capacity = Math.max(1, capacity);
+        int size = Integer.highestOneBit(Math.max(2, this.capacity - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxChars = maxChars;
+    }
+
+    void add(String fragment) {
+        long seq = head.getAndIncrement();
+        Entry old = slots.getAndSet((int) (seq & mask), new Entry(seq, fragment));
+        chars.addAndGet(fragment.length() - (old == null ? 0 : old.html.length()));
+
+        // Acima de capacity mensagens ou do limite de memória: descarta as mais antigas (a mais nova sempre fica)
+        while (true) {
+            long t = tail.get();
+            if (t >= seq) break;
+            if (seq + 1 - t <= capacity && chars.get() <= maxChars) break;
+            if (tail.compareAndSet(t, t + 1)) drop(t);
+        }
+    }
+
+    // Só tira o slot se ele ainda guarda a sequência "seq"; se foi sobrescrito, quem sobrescreveu já descontou
+    private void drop(long seq) {
+        int index = (int) (seq & mask);
+        Entry entry = slots.get(index);
+        if (entry != null && entry.seq == seq && slots.compareAndSet(index, entry, null)) {
+            chars.addAndGet(-entry.html.length());
+        }
+    }
+
+    // Todas as mensagens guardadas, da mais antiga para a mais nova, num único frame
+    String replay() {
+        long end = head.get();
+        long start = Math.max(tail.get(), end - capacity);
+        StringBuilder html = new StringBuilder((int) Math.min(chars.get(), Integer.MAX_VALUE - 8));
+        for (long seq = start; seq < end; seq++) {
+            Entry entry = slots.get((int) (seq & mask));
+            if (entry != null && entry.seq == seq) html.append(entry.html);
+        }
+        return html.toString();
+    }
+
+    int size() {
+        long end = head.get();
+        return (int) Math.max(0, end - Math.max(tail.get(), end - capacity));
+    }
+
+    long chars() { return chars.get(); }
+}
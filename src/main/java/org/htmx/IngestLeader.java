@@ -0,0 +1,99 @@
+package org.htmx;
+
+import io.vertx.core.Vertx;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Eleição do nó que ingere o feed AIS: só um nó do cluster abre as conexões com a AISStream
+// e publica os relatórios decodificados no ClusterBus; os outros só recebem.
+// O líder é quem segura o lock exclusivo do arquivo cluster.leader-lock. O sistema operacional
+// solta o lock quando o processo morre, e o próximo nó que tentar vira o líder.
+// (Lock de arquivo: vale para nós no mesmo host ou com o arquivo num disco compartilhado.)
+@ApplicationScoped
+public class IngestLeader {
+
+    private static final Logger LOG = Logger.getLogger(IngestLeader.class);
+
+    @ConfigProperty(name = "cluster.leader-lock", defaultValue = "data/ingest.lock")
+    Path lockFile;
+
+    // Com que frequência um seguidor tenta assumir a liderança
+    @ConfigProperty(name = "cluster.leader-retry-ms", defaultValue = "2000")
+    long retryMs;
+
+    @Inject
+    ClusterBus bus;
+
+    @Inject
+    UpstreamSupervisor supervisor;
+
+    @Inject
+    Vertx vertx;
+
+    private volatile boolean leader;
+    private FileChannel channel;
+    private FileLock lock;
+    private long retryTimer = -1;
+
+    public void start() {
+        // Sem cluster não há o que eleger
+        if (!bus.clustered()) {
+            lead();
+            return;
+        }
+        if (tryAcquire()) return;
+        LOG.info("👥 Nó seguidor: relatórios AIS chegam pelo cluster (líder segura " + lockFile + ")");
+        // Abrir o arquivo e tentar o lock é I/O bloqueante: fora do event loop que dispara o timer
+        retryTimer = vertx.setPeriodic(retryMs, id -> vertx.executeBlocking(this::tryAcquire, false));
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (leader) return true;
+        try {
+            if (channel == null) {
+                Path parent = lockFile.toAbsolutePath().getParent();
+                if (parent != null) Files.createDirectories(parent);
+                channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            lock = channel.tryLock();
+        } catch (IOException e) {
+            LOG.warn("⚠️ Não foi possível tentar o lock de liderança " + lockFile + ": " + e.getMessage());
+            return false;
+        }
+        if (lock == null) return false;
+
+        if (retryTimer != -1) vertx.cancelTimer(retryTimer);
+        LOG.info("👑 Este nó é o líder da ingestão AIS");
+        lead();
+        return true;
+    }
+
+    private void lead() {
+        leader = true;
+        supervisor.start();
+    }
+
+    @PreDestroy
+    synchronized void release() {
+        try {
+            if (lock != null) lock.release();
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            LOG.warn("⚠️ Erro ao liberar o lock de liderança: " + e.getMessage());
+        }
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+}
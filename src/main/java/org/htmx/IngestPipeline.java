@@ -0,0 +1,337 @@
+package org.htmx;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Pipeline entre o ShipTrackerClient e o ShipRadarServer.
+// O callback do WebSocket só decodifica e publica num ring buffer limitado e sem locks;
+// uma thread consumidora drena em lotes e faz o resto (log, geocodificação, cache, fan-out).
+// Se o consumidor ficar para trás, o socket da AISStream continua sendo lido no ritmo do feed.
+// Em cluster, o consumidor do líder também replica cada relatório no ClusterBus (em lotes);
+// nos outros nós os relatórios recebidos entram neste mesmo ring, como se viessem da AISStream.
+@ApplicationScoped
+public class IngestPipeline {
+
+    private static final Logger LOG = Logger.getLogger(IngestPipeline.class);
+
+    // O que fazer com um relatório quando o ring está cheio
+    public enum FullPolicy {
+        // Descarta o relatório que chegou
+        DROP,
+        // Guarda só o relatório mais novo de cada MMSI fora do ring até o consumidor alcançar
+        COALESCE
+    }
+
+    private static final long STATS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    // Lote de replicação: vários relatórios por datagrama, sem passar muito de alguns pacotes IP
+    private static final int REPLICATION_BATCH_BYTES = 8 * 1024;
+    // reportedAt, mmsi, lat, lon, sog | heading, tipo | 3 strings de até 255 bytes
+    private static final int MAX_REPLICATED_BYTES = 5 * 8 + 2 * 2 + 3 * (2 + 255);
+
+    @ConfigProperty(name = "ingest.ring-capacity", defaultValue = "8192")
+    int ringCapacity;
+
+    @ConfigProperty(name = "ingest.batch-size", defaultValue = "256")
+    int batchSize;
+
+    @ConfigProperty(name = "ingest.full-policy", defaultValue = "COALESCE")
+    FullPolicy fullPolicy;
+
+    // Log de detalhe (DEBUG) só de 1 a cada N relatórios; o console não pode ditar o ritmo do consumidor
+    @ConfigProperty(name = "ingest.log-every", defaultValue = "100")
+    int logEvery;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    ShipRadarServer radarServer;
+
+    @Inject
+    BinaryRadarServer binaryRadar;
+
+    @Inject
+    ShipStats stats;
+
+    @Inject
+    TrackHistory history;
+
+    @Inject
+    ReportSuppressor suppressor;
+
+    @Inject
+    AisJournal journal;
+
+    @Inject
+    ClusterBus bus;
+
+    @Inject
+    IngestLeader leader;
+
+    private PositionReport[] slots;
+    private AtomicLongArray published;   // slot pronto quando published[i] == seq + 1
+    private int mask;
+
+    private final AtomicLong tail = new AtomicLong();  // próxima sequência a reservar (produtores)
+    private final AtomicLong head = new AtomicLong();  // próxima sequência a consumir (consumidor único)
+
+    // Relatórios coalescidos enquanto o ring está cheio: no máximo um por navio
+    private final ConcurrentLongMap<Coalesced> overflow = new ConcurrentLongMap<>(16, 64);
+
+    // "after" é o tail quando o relatório chegou: slots do ring com sequência menor são mais velhos, com
+    // sequência maior ou igual, mais novos. O consumidor só processa o coalescido depois de passar por "after"
+    // (nada mais velho fica para trás) e o descarta se um slot mais novo do mesmo navio passar antes
+    private static final class Coalesced {
+        final PositionReport report;
+        long after;
+
+        Coalesced(PositionReport report, long after) {
+            this.report = report;
+            this.after = after;
+        }
+    }
+
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder processedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+
+    private long logCounter;  // só acessado pelo consumidor
+    private final ByteBuffer replication = ByteBuffer.allocate(REPLICATION_BATCH_BYTES);  // idem
+    private final PositionReport remote = new PositionReport();  // só a thread do ClusterBus
+
+    private Thread consumer;
+    private volatile boolean running;
+    private volatile boolean consumerParked;
+
+    @PostConstruct
+    void init() {
+        int capacity = Integer.highestOneBit(Math.max(2, ringCapacity - 1) << 1);
+        slots = new PositionReport[capacity];
+        for (int i = 0; i < capacity; i++) slots[i] = new PositionReport();
+        published = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+
+        Gauge.builder("ais.ingest.queue.depth", this, IngestPipeline::queueDepth)
+                .description("Relatórios aguardando o consumidor (ring + coalescidos)").register(registry);
+        FunctionCounter.builder("ais.ingest.processed", this, IngestPipeline::processedReports).register(registry);
+        FunctionCounter.builder("ais.ingest.dropped", this, IngestPipeline::droppedReports).register(registry);
+        FunctionCounter.builder("ais.ingest.coalesced", this, IngestPipeline::coalescedReports).register(registry);
+
+        running = true;
+        consumer = new Thread(this::consumeLoop, "ais-ingest");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    // Seguidores precisam assinar já no startup: nada mais instancia o pipeline quando não há AISStream
+    void onStart(@Observes StartupEvent ev) {
+        bus.subscribe(ClusterBus.Topic.REPORTS, this::onRemoteReports);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(consumer);
+        consumer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    // Chamado pelo callback do WebSocket. Copia o relatório para um slot e retorna sem bloquear.
+    public boolean publish(PositionReport report) {
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head.get() >= slots.length) return onFull(report);
+        } while (!tail.compareAndSet(seq, seq + 1));
+
+        int index = (int) (seq & mask);
+        slots[index].copyFrom(report);
+        published.set(index, seq + 1);
+        publishedCount.increment();
+
+        if (consumerParked) LockSupport.unpark(consumer);
+        return true;
+    }
+
+    private boolean onFull(PositionReport report) {
+        if (fullPolicy == FullPolicy.COALESCE && overflow.size() < slots.length) {
+            long after = tail.get();
+            overflow.compute(report.mmsi, (mmsi, pending) -> {
+                if (pending == null) return new Coalesced(report.copy(), after);
+                coalescedCount.increment();
+                pending.report.copyFrom(report);
+                pending.after = Math.max(pending.after, after);
+                return pending;
+            });
+            return true;
+        }
+        droppedCount.increment();
+        return false;
+    }
+
+    private void consumeLoop() {
+        List<PositionReport> coalesced = new ArrayList<>();
+        int idle = 0;
+        long nextStatsAt = System.nanoTime() + STATS_INTERVAL_NANOS;
+
+        while (running) {
+            if (System.nanoTime() - nextStatsAt >= 0) {
+                logStats();
+                nextStatsAt += STATS_INTERVAL_NANOS;
+            }
+
+            int drained = drainBatch();
+
+            if (!overflow.isEmpty()) {
+                long consumed = head.get();
+                overflow.removeIf((mmsi, pending) -> pending.after <= consumed && coalesced.add(pending.report));
+                for (PositionReport report : coalesced) process(report);
+                drained += coalesced.size();
+                coalesced.clear();
+            }
+
+            if (drained > 0) {
+                flushReplication();
+                idle = 0;
+            } else if (++idle < 100) {
+                Thread.onSpinWait();
+            } else {
+                consumerParked = true;
+                // Confere de novo depois de anunciar que vai dormir, para não perder um unpark
+                if (tail.get() == head.get() && overflow.isEmpty()) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                consumerParked = false;
+            }
+        }
+    }
+
+    // Processa até batchSize slots publicados em sequência e só então os libera para os produtores
+    private int drainBatch() {
+        long start = head.get();
+        int n = 0;
+        while (n < batchSize) {
+            long seq = start + n;
+            if (published.get((int) (seq & mask)) != seq + 1) break;
+            n++;
+        }
+        for (int i = 0; i < n; i++) {
+            PositionReport report = slots[(int) ((start + i) & mask)];
+            if (!overflow.isEmpty()) supersede(report.mmsi, start + i);
+            process(report);
+        }
+        if (n > 0) head.lazySet(start + n);
+        return n;
+    }
+
+    // Slot do ring mais novo que o coalescido do mesmo navio: o coalescido não pode vir depois dele
+    private void supersede(long mmsi, long seq) {
+        overflow.compute(mmsi, (key, pending) -> {
+            if (pending == null || pending.after > seq) return pending;
+            coalescedCount.increment();
+            return null;
+        });
+    }
+
+    private void process(PositionReport report) {
+        try {
+            stats.recordReport(report.shipType);
+            // Repetição sem mudança relevante para aqui: nada de tabela, terminais, histórico ou replicação
+            if (!suppressor.accept(report, System.currentTimeMillis())) return;
+
+            String shipType = ShipTrackerClient.getShipType(report.shipType);
+            String direction = ShipTrackerClient.getDirection(report.trueHeading);
+            double speedKmh = report.speedKmh();
+
+            if (LOG.isDebugEnabled() && ++logCounter % Math.max(1, logEvery) == 0) {
+                LOG.debugf("🚢 %s [%s] MMSI %d %s em %.4f, %.4f | %.1f km/h %s | destino %s",
+                        report.shipName, shipType, report.mmsi, report.flag, report.lat, report.lon,
+                        speedKmh, direction, report.destination);
+            }
+
+            radarServer.broadcastAlert(report.shipName, report.mmsi, report.lat, report.lon, report.flag,
+                    shipType, report.shipType, report.destination, speedKmh, direction);
+            binaryRadar.onReport(report);
+            // Histórico, journal e replicação são do líder; seguidores leem o que ele já gravou
+            if (leader.isLeader()) {
+                history.record(report);
+                journal.append(report, System.currentTimeMillis());
+                if (bus.clustered()) replicate(report);
+            }
+        } catch (Exception e) {
+            LOG.error("❌ Erro ao processar relatório do MMSI " + report.mmsi, e);
+        } finally {
+            processedCount.increment();
+        }
+    }
+
+    private void replicate(PositionReport report) {
+        if (replication.remaining() < MAX_REPLICATED_BYTES) flushReplication();
+        replication.putLong(report.reportedAt);
+        replication.putLong(report.mmsi);
+        replication.putDouble(report.lat);
+        replication.putDouble(report.lon);
+        replication.putDouble(report.sog);
+        replication.putShort((short) report.trueHeading);
+        replication.putShort((short) report.shipType);
+        ClusterBus.putString(replication, report.shipName);
+        ClusterBus.putString(replication, report.flag);
+        ClusterBus.putString(replication, report.destination);
+    }
+
+    private void flushReplication() {
+        if (replication.position() == 0) return;
+        replication.flip();
+        bus.publish(ClusterBus.Topic.REPORTS, replication);
+        replication.clear();
+    }
+
+    // Lote vindo do líder: cada relatório entra no ring como se tivesse vindo da AISStream
+    private void onRemoteReports(ByteBuffer batch) {
+        while (batch.hasRemaining()) {
+            remote.reportedAt = batch.getLong();
+            remote.mmsi = batch.getLong();
+            remote.lat = batch.getDouble();
+            remote.lon = batch.getDouble();
+            remote.sog = batch.getDouble();
+            remote.trueHeading = batch.getShort();
+            remote.shipType = batch.getShort();
+            remote.shipName = ClusterBus.getString(batch);
+            remote.flag = ClusterBus.getString(batch);
+            remote.destination = ClusterBus.getString(batch);
+            publish(remote);
+        }
+    }
+
+    private void logStats() {
+        long dropped = droppedReports(), coalescedReports = coalescedReports();
+        if (dropped == 0 && coalescedReports == 0) return;
+        LOG.info("📊 Ingestão AIS: fila=" + queueDepth() + " | processados=" + processedReports()
+                + " | descartados=" + dropped + " | coalescidos=" + coalescedReports
+                + String.format(" | suprimidos=%.0f%%", 100 * suppressor.suppressionRatio()));
+    }
+
+    // Métricas do pipeline
+    public long queueDepth() { return tail.get() - head.get() + overflow.size(); }
+    public long publishedReports() { return publishedCount.sum(); }
+    public long processedReports() { return processedCount.sum(); }
+    public long droppedReports() { return droppedCount.sum(); }
+    public long coalescedReports() { return coalescedCount.sum(); }
+}
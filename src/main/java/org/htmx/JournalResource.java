@@ -0,0 +1,49 @@
+package org.htmx;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+// Replay do journal AIS por janela de tempo, para diagnóstico (texto puro, um relatório por linha)
+@Path("/api/journal")
+public class JournalResource {
+
+    static final int MAX_LINES = 5000;
+
+    @Inject
+    AisJournal journal;
+
+    // Ex.: /api/journal?minutos=15 ou /api/journal?de=1760000000000&ate=1760000600000&mmsi=710012345
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public String replay(@QueryParam("minutos") @DefaultValue("10") int minutes,
+                         @QueryParam("de") Long from, @QueryParam("ate") Long to,
+                         @QueryParam("mmsi") @DefaultValue("0") long mmsi) throws IOException {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - TimeUnit.MINUTES.toMillis(Math.max(1, minutes));
+
+        StringBuilder out = new StringBuilder();
+        int[] lines = {0};
+        journal.replay(start, end, (report, recordedAt) -> {
+            if (mmsi != 0 && report.mmsi != mmsi) return;
+            if (lines[0]++ >= MAX_LINES) return;
+            out.append(Instant.ofEpochMilli(recordedAt)).append(';')
+                    .append(report.mmsi).append(';')
+                    .append(report.shipName).append(';')
+                    .append(String.format("%.5f;%.5f;%.1f;%d;%d", report.lat, report.lon, report.sog,
+                            report.trueHeading, report.shipType)).append(';')
+                    .append(report.flag).append(';')
+                    .append(report.destination).append('\n');
+        });
+        if (lines[0] > MAX_LINES) out.append("... ").append(lines[0] - MAX_LINES).append(" relatórios omitidos\n");
+        return out.toString();
+    }
+}
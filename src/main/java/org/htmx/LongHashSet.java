@@ -0,0 +1,89 @@
+package org.htmx;
+
+import java.util.Arrays;
+
+// Conjunto de longs primitivos (MMSIs) sem boxing, para as listas de postagem do índice de busca.
+// Mesmo esquema do ConcurrentLongMap (sondagem linear, remoção com deslocamento), mas sem lock:
+// quem usa sincroniza por fora.
+final class LongHashSet {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int size;
+
+    LongHashSet() {
+        keys = newTable(4);
+    }
+
+    private static long[] newTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    // >= 0: slot da chave; < 0: -(slot livre) - 1
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int i = ConcurrentLongMap.hash(key) & mask;
+        while (true) {
+            long k = keys[i];
+            if (k == key) return i;
+            if (k == EMPTY) return -1 - i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    boolean contains(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    boolean add(long key) {
+        int i = indexOf(key);
+        if (i >= 0) return false;
+        keys[-1 - i] = key;
+        if (++size * 2 > keys.length) resize();
+        return true;
+    }
+
+    boolean remove(long key) {
+        int hole = indexOf(key);
+        if (hole < 0) return false;
+        int mask = keys.length - 1;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = keys[j];
+            if (k == EMPTY) break;
+            int ideal = ConcurrentLongMap.hash(k) & mask;
+            boolean reachable = hole <= j ? (ideal > hole && ideal <= j) : (ideal > hole || ideal <= j);
+            if (!reachable) {
+                keys[hole] = k;
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return true;
+    }
+
+    int size() { return size; }
+
+    boolean isEmpty() { return size == 0; }
+
+    interface Visitor { void accept(long key); }
+
+    void forEach(Visitor visitor) {
+        for (long k : keys) {
+            if (k != EMPTY) visitor.accept(k);
+        }
+    }
+
+    private void resize() {
+        long[] old = keys;
+        keys = newTable(old.length * 2);
+        for (long k : old) {
+            if (k != EMPTY) keys[-1 - indexOf(k)] = k;
+        }
+    }
+}
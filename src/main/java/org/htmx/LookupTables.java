@@ -0,0 +1,57 @@
+package org.htmx;
+
+// Rótulos de tipo e direção pré-calculados em arrays: cada relatório vira dois acessos por índice
+// em vez de switch e Math.round. As regras continuam escritas uma vez só (os métodos classify*),
+// e só rodam para preencher as tabelas. (A região vem do ReverseGeocoder.)
+// No build nativo a classe é inicializada em tempo de build (quarkus.native.additional-build-args):
+// as tabelas já vêm prontas no heap da imagem, sem custo nenhum na partida.
+final class LookupTables {
+
+    private static final int HEADING_UNAVAILABLE = 511;
+
+    // Códigos AIS de tipo vão de 0 a 99; fora disso é "navio" genérico
+    private static final String[] SHIP_TYPES = new String[100];
+    private static final String DEFAULT_SHIP_TYPE = classifyShipType(-1);
+
+    private static final String[] DIRECTIONS = new String[360];
+
+    static {
+        for (int code = 0; code < SHIP_TYPES.length; code++) SHIP_TYPES[code] = classifyShipType(code);
+        for (int heading = 0; heading < DIRECTIONS.length; heading++) DIRECTIONS[heading] = classifyDirection(heading);
+    }
+
+    private LookupTables() {}
+
+    static String shipType(int code) {
+        return code >= 0 && code < SHIP_TYPES.length ? SHIP_TYPES[code] : DEFAULT_SHIP_TYPE;
+    }
+
+    static String direction(int heading) {
+        if (heading == HEADING_UNAVAILABLE) return "Não disponível";
+        if (heading < 0 || heading > 359) return "Desconhecido";
+        return DIRECTIONS[heading];
+    }
+
+    private static String classifyShipType(int code) {
+        return switch (code) {
+            case 30, 31, 32, 33, 34, 35, 36, 37, 38, 39 -> "🎣 Pesca";
+            case 40, 41, 42, 43, 44, 45, 46, 47, 48, 49 -> "⛴️ Alta velocidade";
+            case 50 -> "🚤 Piloto";
+            case 51 -> "🔍 Busca e resgate";
+            case 52 -> "⛵ Rebocador";
+            case 53 -> "🚢 Porta-contentores";
+            case 54 -> "🛢️ Petroleiro";
+            case 55 -> "⚓ Militar";
+            case 60, 61, 62, 63, 64, 65, 66, 67, 68, 69 -> "🛳️ Passageiros";
+            case 70, 71, 72, 73, 74, 75, 76, 77, 78, 79 -> "📦 Carga";
+            case 80, 81, 82, 83, 84, 85, 86, 87, 88, 89 -> "🛢️ Tanque";
+            default -> "🚢 Navio";
+        };
+    }
+
+    private static String classifyDirection(int heading) {
+        String[] directions = {"Norte", "Nordeste", "Leste", "Sudeste", "Sul", "Sudoeste", "Oeste", "Noroeste"};
+        int index = (int) Math.round(((double) heading % 360) / 45) % 8;
+        return directions[index];
+    }
+}
@@ -0,0 +1,187 @@
+package org.htmx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.websockets.next.WebSocketConnection;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fila de saída limitada de UMA conexão: no máximo um envio assíncrono em voo,
+// então um navegador lento nunca segura a thread de quem publica.
+public class OutboundQueue {
+
+    private static final Logger LOG = Logger.getLogger(OutboundQueue.class);
+
+    private static final class Frame {
+        final String key;
+        final long enqueuedAt;
+        final byte[] binary;    // frame binário (/ships-bin); null para texto
+        String text;
+
+        Frame(String key, String text, byte[] binary, long enqueuedAt) {
+            this.key = key;
+            this.text = text;
+            this.binary = binary;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    // Métricas do grupo, compartilhadas por todas as filas dele
+    record Meters(Counter dropped, Counter coalesced, Timer sendLag) {}
+
+    private final WebSocketConnection connection;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final Meters meters;
+
+    // Protegidos por "this"
+    private final ArrayDeque<Frame> pending;
+    private boolean sending;
+    private boolean closed;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private volatile long lastLagNanos;
+
+    OutboundQueue(WebSocketConnection connection, int capacity, OverflowPolicy policy, Meters meters) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.meters = meters;
+        this.pending = new ArrayDeque<>(Math.min(capacity, 64));
+    }
+
+    public WebSocketConnection connection() { return connection; }
+
+    // Enfileira sem bloquear. key != null permite coalescer frames equivalentes.
+    public void offer(String key, String text) {
+        enqueue(key, text, null);
+    }
+
+    // Frame binário: mesma fila e mesma política de overflow, nunca coalescido
+    public void offerBinary(byte[] frame) {
+        enqueue(null, null, frame);
+    }
+
+    private void enqueue(String key, String text, byte[] binary) {
+        boolean disconnect = false;
+        synchronized (this) {
+            if (closed) return;
+
+            if (key != null && policy == OverflowPolicy.COALESCE && replacePending(key, text)) {
+                coalesced.incrementAndGet();
+                meters.coalesced().increment();
+                return;
+            }
+
+            if (pending.size() >= capacity) {
+                if (policy == OverflowPolicy.DISCONNECT) {
+                    closed = true;
+                    pending.clear();
+                    disconnect = true;
+                } else {
+                    pending.pollFirst();
+                    dropped.incrementAndGet();
+                    meters.dropped().increment();
+                }
+            }
+
+            if (!disconnect) pending.addLast(new Frame(key, text, binary, System.nanoTime()));
+        }
+
+        if (disconnect) {
+            dropped.incrementAndGet();
+            meters.dropped().increment();
+            LOG.warn("⚠️ Conexão " + connection.id() + " lenta demais, desconectando");
+            connection.close().subscribe().with(v -> {}, t -> {});
+            return;
+        }
+        drain();
+    }
+
+    // Mantém a posição do frame antigo na fila, só troca o conteúdo
+    private boolean replacePending(String key, String text) {
+        for (Iterator<Frame> it = pending.descendingIterator(); it.hasNext(); ) {
+            Frame f = it.next();
+            if (key.equals(f.key)) {
+                f.text = text;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drain() {
+        Frame next;
+        synchronized (this) {
+            if (sending || closed) return;
+            next = pending.pollFirst();
+            if (next == null) return;
+            sending = true;
+        }
+
+        if (!connection.isOpen()) {
+            close();
+            return;
+        }
+
+        String text;
+        synchronized (this) {
+            text = next.text;
+        }
+
+        // Profundidade da recursão é limitada pela capacidade da fila
+        (next.binary != null ? connection.sendBinary(next.binary) : connection.sendText(text)).subscribe().with(
+                v -> onSent(next),
+                failure -> {
+                    LOG.error("❌ Falha ao enviar para " + connection.id() + ": " + failure.getMessage());
+                    close();
+                });
+    }
+
+    private void onSent(Frame frame) {
+        long lag = System.nanoTime() - frame.enqueuedAt;
+        lastLagNanos = lag;
+        meters.sendLag().record(lag, TimeUnit.NANOSECONDS);
+        sent.incrementAndGet();
+        synchronized (this) {
+            sending = false;
+        }
+        drain();
+    }
+
+    void close() {
+        synchronized (this) {
+            closed = true;
+            pending.clear();
+        }
+    }
+
+    public synchronized int depth() { return pending.size(); }
+
+    // Idade do frame mais antigo ainda não enviado (0 se a fila está vazia)
+    public long lagMillis() {
+        Frame head;
+        synchronized (this) {
+            head = pending.peekFirst();
+        }
+        return head == null ? 0 : (System.nanoTime() - head.enqueuedAt) / 1_000_000;
+    }
+
+    // Tempo entre enfileirar e concluir o último envio
+    public long lastSendLagMillis() { return lastLagNanos / 1_000_000; }
+
+    public long sentCount() { return sent.get(); }
+    public long droppedCount() { return dropped.get(); }
+    public long coalescedCount() { return coalesced.get(); }
+
+    @Override
+    public String toString() {
+        return "OutboundQueue[" + connection.id() + ", depth=" + depth() + ", lag=" + lagMillis() + "ms]";
+    }
+}
@@ -0,0 +1,11 @@
+package org.htmx;
+
+// O que fazer quando a fila de saída de uma conexão enche
+public enum OverflowPolicy {
+    // Descarta o frame mais antigo pendente para abrir espaço
+    DROP_OLDEST,
+    // Substitui o frame pendente com a mesma chave (ex.: mesmo MMSI); sem chave, cai em DROP_OLDEST
+    COALESCE,
+    // Consumidor lento demais: encerra a conexão
+    DISCONNECT
+}
@@ -0,0 +1,88 @@
+package org.htmx;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Histórico de posições. "bucket" é a hora (epoch) do relatório: a retenção apaga por balde,
+// e o índice (mmsi, recordedAt) atende a consulta de trajeto de um navio.
+@Entity
+@Table(name = "position_report", indexes = {
+        @Index(name = "idx_position_mmsi_time", columnList = "mmsi, recorded_at"),
+        @Index(name = "idx_position_bucket", columnList = "bucket")
+})
+public class PositionRecord extends PanacheEntityBase {
+
+    // allocationSize alto: o Hibernate reserva ids em bloco e consegue agrupar os inserts em batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "position_report_seq")
+    @SequenceGenerator(name = "position_report_seq", allocationSize = 500)
+    public Long id;
+
+    public long mmsi;
+    public long bucket;
+    @Column(name = "recorded_at")
+    public long recordedAt;
+    public double lat;
+    public double lon;
+    public double speedKmh;
+    public int heading;
+    public int typeCode;
+    public String name;
+
+    public String speedLabel() {
+        return String.format("%.0f", speedKmh);
+    }
+
+    public static long bucketOf(long epochMillis) {
+        return TimeUnit.MILLISECONDS.toHours(epochMillis);
+    }
+
+    public static PositionRecord of(PositionReport report, long recordedAt) {
+        PositionRecord record = new PositionRecord();
+        record.mmsi = report.mmsi;
+        record.recordedAt = recordedAt;
+        record.bucket = bucketOf(recordedAt);
+        record.lat = report.lat;
+        record.lon = report.lon;
+        record.speedKmh = report.speedKmh();
+        record.heading = report.trueHeading;
+        record.typeCode = report.shipType;
+        record.name = report.shipName;
+        return record;
+    }
+
+    // Trajeto de um navio desde "since", em ordem cronológica, com no máximo maxPoints posições:
+    // acima disso fica uma a cada N (sempre com a primeira e a última). Precisa de transação (stream).
+    public static List<PositionRecord> track(long mmsi, long since, int maxPoints) {
+        long total = count("mmsi = ?1 and recordedAt >= ?2", mmsi, since);
+        if (total == 0) return List.of();
+        long stride = Math.max(1, (total + maxPoints - 1) / Math.max(1, maxPoints));
+        List<PositionRecord> points = new ArrayList<>((int) Math.min(total, maxPoints) + 1);
+        long[] index = {0};
+        PositionRecord[] last = {null};
+        try (Stream<PositionRecord> rows = find("mmsi = ?1 and recordedAt >= ?2 order by recordedAt", mmsi, since).stream()) {
+            rows.forEach(row -> {
+                if (index[0]++ % stride == 0) points.add(row);
+                last[0] = row;
+            });
+        }
+        if (last[0] != null && points.get(points.size() - 1) != last[0]) points.add(last[0]);
+        return points;
+    }
+
+    public static long deleteOlderThan(long bucket) {
+        return delete("bucket < ?1", bucket);
+    }
+}
@@ -0,0 +1,53 @@
+package org.htmx;
+
+// Relatório de posição AIS decodificado. Objeto reutilizável (flyweight):
+// o decoder preenche a mesma instância a cada frame, então quem precisar guardar os dados deve copiá-los.
+public final class PositionReport {
+
+    public long mmsi;
+    public double lat;
+    public double lon;
+    public double sog;          // Speed Over Ground, em nós
+    public int trueHeading;     // 0-359, 511 = não disponível
+    public int shipType;        // código AIS do tipo de navio
+    public String shipName;
+    public String flag;
+    public String destination;
+    public long reportedAt;     // time_utc da AISStream em epoch millis (0 = ausente)
+
+    void reset() {
+        mmsi = 0;
+        lat = 0;
+        lon = 0;
+        sog = 0;
+        trueHeading = 0;
+        shipType = 0;
+        shipName = null;
+        flag = null;
+        destination = null;
+        reportedAt = 0;
+    }
+
+    public double speedKmh() {
+        return sog * 1.852;
+    }
+
+    public PositionReport copy() {
+        PositionReport copy = new PositionReport();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    public void copyFrom(PositionReport other) {
+        mmsi = other.mmsi;
+        lat = other.lat;
+        lon = other.lon;
+        sog = other.sog;
+        trueHeading = other.trueHeading;
+        shipType = other.shipType;
+        shipName = other.shipName;
+        flag = other.flag;
+        destination = other.destination;
+        reportedAt = other.reportedAt;
+    }
+}
@@ -0,0 +1,53 @@
+package org.htmx;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Dicionário de textos (nome, destino, bandeira) do protocolo binário do radar: cada texto vai para
+// o cliente uma vez só, e os registros carregam o id de 16 bits. Ids são sequenciais, então "o que o
+// cliente já conhece" é um único número (quantas entradas ele recebeu).
+// Só a thread do flush do BinaryRadarServer mexe nele.
+final class RadarDictionary {
+
+    // Id reservado para "sem texto"; ids válidos vão de 0 a NONE - 1
+    static final int NONE = 0xFFFF;
+
+    // Passou disso, o flush zera o dicionário e reenvia o estado inteiro (nomes de navios que já
+    // saíram da tabela nunca são removidos um a um). Verificado antes de cada navio, que usa até 3 ids,
+    // então o dicionário não enche no meio de um tick
+    static final int RESET_AT = 60_000;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> entries = new ArrayList<>();
+
+    // Id do texto, criando uma entrada nova se preciso; NONE para texto vazio ou dicionário cheio
+    int id(String text) {
+        if (text == null || text.isEmpty()) return NONE;
+        Integer id = ids.get(text);
+        if (id != null) return id;
+        if (entries.size() >= NONE) return NONE;
+        id = entries.size();
+        ids.put(text, id);
+        entries.add(text);
+        return id;
+    }
+
+    String get(int id) {
+        return entries.get(id);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    boolean full() {
+        return entries.size() >= NONE;
+    }
+
+    void clear() {
+        ids.clear();
+        entries.clear();
+    }
+}
@@ -0,0 +1,135 @@
+package org.htmx;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Formato dos frames binários do /ships-bin (big-endian):
+//
+//   u8  versão (1)
+//   u8  flags: 1 = RESET (cliente descarta o dicionário), 2 = SNAPSHOT (cliente descarta os navios)
+//   u16 entradas novas do dicionário, cada uma: u16 id | u8 tamanho | texto UTF-8
+//   u16 registros, cada um com RECORD_BYTES bytes:
+//       u32 mmsi | i32 lat × 1e5 | i32 lon × 1e5 | u16 velocidade (décimos de nó) | u16 proa (511 = n/d)
+//       u8 código AIS do tipo | u8 reservado | u16 id do nome | u16 id do destino | u16 id da bandeira
+//
+// Ids de texto 0xFFFF = sem texto. 24 bytes por navio, contra ~600 de um fragmento HTML do /ships-ws.
+final class RadarFrame {
+
+    static final int VERSION = 1;
+    static final int RESET = 1;
+    static final int SNAPSHOT = 2;
+
+    static final int RECORD_BYTES = 24;
+    // Um snapshot grande vai em vários frames (o primeiro leva as flags e o dicionário)
+    static final int MAX_RECORDS_PER_FRAME = 4096;
+
+    private static final int MAX_TEXT_BYTES = 255;
+    private static final double COORDINATE_SCALE = 1e5;   // ~1 m
+    private static final byte[] EMPTY_ENTRIES = new byte[2];
+
+    // Estado de um navio no formato do fio; os ids de texto são atribuídos no flush
+    static final class Vessel {
+        final long mmsi;
+        final int lat, lon, speed, heading, type;
+        final String name, destination, flag;
+        int nameId = RadarDictionary.NONE, destinationId = RadarDictionary.NONE, flagId = RadarDictionary.NONE;
+
+        Vessel(long mmsi, double lat, double lon, double sogKnots, int heading, int type,
+               String name, String destination, String flag) {
+            this.mmsi = mmsi;
+            this.lat = (int) Math.round(lat * COORDINATE_SCALE);
+            this.lon = (int) Math.round(lon * COORDINATE_SCALE);
+            this.speed = (int) Math.max(0, Math.min(0xFFFF, Math.round(sogKnots * 10)));
+            this.heading = heading & 0xFFFF;
+            this.type = type & 0xFF;
+            this.name = name;
+            this.destination = destination;
+            this.flag = flag;
+        }
+
+        // O relatório é reutilizado pelo decoder: copia na hora
+        static Vessel of(PositionReport report) {
+            return new Vessel(report.mmsi, report.lat, report.lon, report.sog, report.trueHeading, report.shipType,
+                    report.shipName, report.destination, report.flag);
+        }
+
+        void intern(RadarDictionary dictionary) {
+            nameId = dictionary.id(name);
+            destinationId = dictionary.id(destination);
+            flagId = dictionary.id(flag);
+        }
+    }
+
+    private RadarFrame() {}
+
+    // Seção de dicionário com as entradas [from, dictionary.size())
+    static byte[] entries(RadarDictionary dictionary, int from) {
+        int count = dictionary.size() - from;
+        byte[][] texts = new byte[count][];
+        int size = 2;
+        for (int i = 0; i < count; i++) {
+            texts[i] = truncate(dictionary.get(from + i).getBytes(StandardCharsets.UTF_8));
+            size += 3 + texts[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putShort((short) count);
+        for (int i = 0; i < count; i++) {
+            buffer.putShort((short) (from + i));
+            buffer.put((byte) texts[i].length);
+            buffer.put(texts[i]);
+        }
+        return buffer.array();
+    }
+
+    // Registros em sequência, sem contagem (a contagem vai no frame)
+    static byte[] records(List<Vessel> vessels) {
+        ByteBuffer buffer = ByteBuffer.allocate(vessels.size() * RECORD_BYTES);
+        for (Vessel v : vessels) {
+            buffer.putInt((int) v.mmsi);
+            buffer.putInt(v.lat);
+            buffer.putInt(v.lon);
+            buffer.putShort((short) v.speed);
+            buffer.putShort((short) v.heading);
+            buffer.put((byte) v.type);
+            buffer.put((byte) 0);
+            buffer.putShort((short) v.nameId);
+            buffer.putShort((short) v.destinationId);
+            buffer.putShort((short) v.flagId);
+        }
+        return buffer.array();
+    }
+
+    // Monta os frames: o primeiro com flags e dicionário, os seguintes (se houver) só com registros
+    static List<byte[]> frames(int flags, byte[] entries, byte[] records) {
+        int total = records.length / RECORD_BYTES;
+        List<byte[]> frames = new ArrayList<>(1 + total / MAX_RECORDS_PER_FRAME);
+        int offset = 0;
+        do {
+            int count = Math.min(total - offset, MAX_RECORDS_PER_FRAME);
+            boolean first = offset == 0;
+            byte[] dictionary = first ? entries : EMPTY_ENTRIES;
+            ByteBuffer frame = ByteBuffer.allocate(2 + dictionary.length + 2 + count * RECORD_BYTES);
+            frame.put((byte) VERSION);
+            frame.put((byte) (first ? flags : 0));
+            frame.put(dictionary);
+            frame.putShort((short) count);
+            frame.put(records, offset * RECORD_BYTES, count * RECORD_BYTES);
+            frames.add(frame.array());
+            offset += count;
+        } while (offset < total);
+        return frames;
+    }
+
+    // Nomes e destinos AIS têm 20 caracteres; o corte só protege o campo de tamanho (u8)
+    private static byte[] truncate(byte[] utf8) {
+        if (utf8.length <= MAX_TEXT_BYTES) return utf8;
+        int end = MAX_TEXT_BYTES;
+        // Não corta no meio de um caractere multibyte
+        while (end > 0 && (utf8[end] & 0xC0) == 0x80) end--;
+        byte[] cut = new byte[end];
+        System.arraycopy(utf8, 0, cut, 0, end);
+        return cut;
+    }
+}
@@ -0,0 +1,121 @@
+package org.htmx;
+
+import org.htmx.ShipRadarServer.ShipData;
+
+import java.util.Locale;
+
+// O que um terminal do radar quer ver: uma região (retângulo), categorias de navio e velocidade mínima.
+// Imutável: trocar de filtro é trocar a instância inteira.
+public record RadarSubscription(String region, double minLat, double minLon, double maxLat, double maxLon,
+                                int categories, double minSpeedKmh) {
+
+    // Categorias (bits), nas mesmas faixas de código AIS do ShipTrackerClient.getShipType
+    static final int CARGO = 1, TANKER = 2, PASSENGER = 4, FISHING = 8, OTHER = 16;
+    static final int ALL = CARGO | TANKER | PASSENGER | FISHING | OTHER;
+
+    // Meia largura da região de um porto, em graus (~110 km)
+    static final double PORT_HALF_SPAN_DEG = 1.0;
+
+    // Padrão de quem conecta: a costa inteira, sem filtro
+    static final RadarSubscription COAST = new RadarSubscription("costa",
+            VesselGrid.MIN_LAT, VesselGrid.MIN_LON, VesselGrid.MAX_LAT, VesselGrid.MAX_LON, ALL, 0);
+
+    static int category(int typeCode) {
+        if (ShipStats.isCargo(typeCode)) return CARGO;
+        if (ShipStats.isTanker(typeCode)) return TANKER;
+        if (typeCode >= 60 && typeCode <= 69) return PASSENGER;
+        if (typeCode >= 30 && typeCode <= 39) return FISHING;
+        return OTHER;
+    }
+
+    // region: "costa", nome de porto (santos, rio...) ou "minLat,minLon,maxLat,maxLon"
+    // types: "all" ou lista separada por vírgula (carga, petroleiro, passageiros, pesca, outros)
+    // null se algum campo é inválido
+    static RadarSubscription parse(String region, String types, String minSpeed) {
+        double[] box = regionBox(region == null || region.isBlank() ? "costa" : region.trim().toLowerCase(Locale.ROOT));
+        if (box == null) return null;
+
+        int categories = 0;
+        for (String type : (types == null || types.isBlank() ? "all" : types).toLowerCase(Locale.ROOT).split(",")) {
+            int bits = switch (type.trim()) {
+                case "all", "todos" -> ALL;
+                case "carga" -> CARGO;
+                case "petroleiro", "petroleiros", "tanque" -> TANKER;
+                case "passageiros" -> PASSENGER;
+                case "pesca" -> FISHING;
+                case "outros" -> OTHER;
+                default -> 0;
+            };
+            if (bits == 0) return null;
+            categories |= bits;
+        }
+
+        double speed = 0;
+        if (minSpeed != null && !minSpeed.isBlank()) {
+            try {
+                speed = Double.parseDouble(minSpeed.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (speed < 0 || Double.isNaN(speed)) return null;
+        }
+
+        // Nome canônico: a entrada do usuário nunca vai crua para o HTML
+        String name = region == null || region.isBlank() ? "costa" : region.trim().toLowerCase(Locale.ROOT);
+        if (!name.equals("costa") && !ChatWebSocket.PORTS.containsKey(name)) {
+            name = String.format(Locale.ROOT, "%.2f,%.2f → %.2f,%.2f", box[0], box[1], box[2], box[3]);
+        }
+        return new RadarSubscription(name, box[0], box[1], box[2], box[3], categories, speed);
+    }
+
+    private static double[] regionBox(String region) {
+        if (region.equals("costa")) return new double[]{COAST.minLat, COAST.minLon, COAST.maxLat, COAST.maxLon};
+
+        double[] port = ChatWebSocket.PORTS.get(region);
+        if (port != null) {
+            return new double[]{port[0] - PORT_HALF_SPAN_DEG, port[1] - PORT_HALF_SPAN_DEG,
+                    port[0] + PORT_HALF_SPAN_DEG, port[1] + PORT_HALF_SPAN_DEG};
+        }
+
+        String[] parts = region.split(",");
+        if (parts.length != 4) return null;
+        try {
+            double lat1 = Double.parseDouble(parts[0].trim()), lon1 = Double.parseDouble(parts[1].trim());
+            double lat2 = Double.parseDouble(parts[2].trim()), lon2 = Double.parseDouble(parts[3].trim());
+            if (Double.isNaN(lat1 + lon1 + lat2 + lon2)) return null;
+            return new double[]{Math.min(lat1, lat2), Math.min(lon1, lon2), Math.max(lat1, lat2), Math.max(lon1, lon2)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Cobre a costa inteira: fica fora da grade do SubscriptionIndex, numa lista própria
+    boolean coastWide() {
+        return minLat <= COAST.minLat && minLon <= COAST.minLon && maxLat >= COAST.maxLat && maxLon >= COAST.maxLon;
+    }
+
+    boolean covers(double lat, double lon) {
+        return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+    }
+
+    boolean matches(ShipData ship) {
+        return covers(ship.lat, ship.lon)
+                && (categories & category(ship.typeCode)) != 0
+                && ship.speedKmh >= minSpeedKmh;
+    }
+
+    // Texto do indicador no topo do radar
+    String describe() {
+        StringBuilder text = new StringBuilder("📡 ").append(region);
+        if (categories != ALL) {
+            text.append(" ·");
+            if ((categories & CARGO) != 0) text.append(" 📦 carga");
+            if ((categories & TANKER) != 0) text.append(" 🛢️ petroleiros");
+            if ((categories & PASSENGER) != 0) text.append(" 🛳️ passageiros");
+            if ((categories & FISHING) != 0) text.append(" 🎣 pesca");
+            if ((categories & OTHER) != 0) text.append(" 🚢 outros");
+        }
+        if (minSpeedKmh > 0) text.append(String.format(Locale.ROOT, " · ≥ %.0f km/h", minSpeedKmh));
+        return text.toString();
+    }
+}
@@ -0,0 +1,126 @@
+package org.htmx;
+
+import io.quarkus.websockets.next.WebSocketConnection;
+import org.htmx.ShipRadarServer.ShipData;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+// Estado de um terminal do radar: a assinatura atual, os navios que ele tem na tela
+// e o frame sendo montado no tick. Tudo protegido pelo próprio objeto.
+final class RadarViewer {
+
+    static final long NONE = -1;
+
+    final WebSocketConnection connection;
+    private final int maxEntries;
+
+    RadarSubscription subscription;
+    // Navios na tela deste terminal, do atualizado há mais tempo para o mais recente
+    private final LinkedHashSet<Long> shown = new LinkedHashSet<>();
+
+    // Frame do tick atual: deltas e remoções, depois as entradas novas
+    private final StringBuilder deltas = new StringBuilder();
+    private final List<ShipData> added = new ArrayList<>();
+    boolean touched;
+    // Entradas novas que passaram do limite do tick, em ordem de chegada; saem nos ticks seguintes
+    private final LinkedHashMap<Long, ShipData> deferred = new LinkedHashMap<>();
+
+    RadarViewer(WebSocketConnection connection, RadarSubscription subscription, int maxEntries) {
+        this.connection = connection;
+        this.subscription = subscription;
+        this.maxEntries = maxEntries;
+    }
+
+    boolean shows(long mmsi) {
+        return shown.contains(mmsi);
+    }
+
+    // Navio atualizado: passa a ser o último a sair da tela
+    void refresh(long mmsi) {
+        shown.remove(mmsi);
+        shown.add(mmsi);
+    }
+
+    // Entrada nova na tela; devolve o navio que saiu para abrir espaço (ou NONE)
+    long show(ShipData ship) {
+        deferred.remove(ship.mmsi);
+        added.add(ship);
+        shown.add(ship.mmsi);
+        if (shown.size() <= maxEntries) return NONE;
+        Iterator<Long> oldest = shown.iterator();
+        long evicted = oldest.next();
+        oldest.remove();
+        return evicted;
+    }
+
+    void hide(long mmsi) {
+        shown.remove(mmsi);
+    }
+
+    // Adia uma entrada nova para o próximo tick; true se o terminal ainda não tinha nada adiado
+    boolean defer(ShipData ship) {
+        boolean first = deferred.isEmpty();
+        deferred.remove(ship.mmsi);
+        deferred.put(ship.mmsi, ship);
+        if (deferred.size() > maxEntries) {
+            // Mais do que cabe na tela: as mais antigas sairiam de qualquer jeito
+            Iterator<Long> oldest = deferred.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        return first;
+    }
+
+    // Deixou de casar com o filtro antes de aparecer
+    void undefer(long mmsi) {
+        if (!deferred.isEmpty()) deferred.remove(mmsi);
+    }
+
+    List<ShipData> takeDeferred() {
+        if (deferred.isEmpty()) return List.of();
+        List<ShipData> ships = new ArrayList<>(deferred.values());
+        deferred.clear();
+        return ships;
+    }
+
+    int addedCount() {
+        return added.size();
+    }
+
+    void append(String html) {
+        deltas.append(html);
+    }
+
+    // Troca de assinatura: a tela é substituída pelo snapshot, então o que estava pendente não vale mais
+    void reset(RadarSubscription subscription, List<ShipData> snapshot) {
+        this.subscription = subscription;
+        shown.clear();
+        for (ShipData ship : snapshot) shown.add(ship.mmsi);
+        deltas.setLength(0);
+        added.clear();
+        deferred.clear();
+    }
+
+    // Frame do tick (null se não há nada para este terminal); countHtml vai junto se o contador mudou
+    String takeFrame(String countHtml) {
+        touched = false;
+        if (deltas.isEmpty() && added.isEmpty() && countHtml == null) return null;
+
+        StringBuilder frame = deltas;
+        if (!added.isEmpty()) {
+            // afterbegin mantém a ordem dos filhos: o mais recente vai primeiro
+            frame.append("<div id=\"radar-log\" hx-swap-oob=\"afterbegin\">");
+            for (int i = added.size() - 1; i >= 0; i--) frame.append(added.get(i).toHtml());
+            frame.append("</div>");
+            added.clear();
+        }
+        if (countHtml != null) frame.append(countHtml);
+        String text = frame.toString();
+        deltas.setLength(0);
+        return text;
+    }
+}
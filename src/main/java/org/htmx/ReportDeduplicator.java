@@ -0,0 +1,33 @@
+package org.htmx;
+
+// Descarta o mesmo relatório recebido por mais de um shard (as faixas vizinhas se encostam na borda).
+// Chave: MMSI + time_utc. Um relatório igual ou mais velho que o último aceito do navio é duplicado.
+public final class ReportDeduplicator {
+
+    private final ConcurrentLongMap<long[]> lastAccepted = new ConcurrentLongMap<>();
+
+    // true se o relatório deve seguir para o pipeline
+    public boolean accept(long mmsi, long reportedAt) {
+        if (reportedAt == 0) return true;  // sem timestamp não dá para comparar
+        boolean[] fresh = {false};
+        lastAccepted.compute(mmsi, (key, last) -> {
+            if (last == null) {
+                fresh[0] = true;
+                return new long[]{reportedAt};
+            }
+            if (reportedAt > last[0]) {
+                last[0] = reportedAt;
+                fresh[0] = true;
+            }
+            return last;
+        });
+        return fresh[0];
+    }
+
+    // Esquece navios sem relatório desde "cutoff" (epoch millis)
+    public int evictOlderThan(long cutoff) {
+        return lastAccepted.removeIf((mmsi, last) -> last[0] < cutoff);
+    }
+
+    public int size() { return lastAccepted.size(); }
+}
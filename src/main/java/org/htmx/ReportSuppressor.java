@@ -0,0 +1,169 @@
+package org.htmx;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Filtro de relatórios redundantes, por MMSI. Navio fundeado ou lento repete a mesma posição o tempo todo;
+// cada repetição custava um ShipData novo, uma escrita na tabela e um frame para os terminais.
+// Um relatório só segue se algo mudou além dos limites em relação ao último que seguiu:
+//   - posição: distância até onde a navegação estimada (dead reckoning) dizia que o navio estaria;
+//     parado, a estimativa é a própria posição anterior
+//   - velocidade (nós) ou proa (graus)
+//   - nome, bandeira, destino ou tipo
+// e, de qualquer forma, um a cada suppression.max-interval-seconds (o navio não some da tabela por silêncio).
+@ApplicationScoped
+public class ReportSuppressor {
+
+    private static final double EARTH_RADIUS_M = 6_371_000.0;
+    private static final double METERS_PER_SECOND_PER_KNOT = 1852.0 / 3600;
+    private static final int HEADING_UNAVAILABLE = 511;
+
+    @ConfigProperty(name = "suppression.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "suppression.position-meters", defaultValue = "50")
+    double positionMeters;
+
+    @ConfigProperty(name = "suppression.speed-knots", defaultValue = "0.5")
+    double speedKnots;
+
+    @ConfigProperty(name = "suppression.heading-degrees", defaultValue = "5")
+    int headingDegrees;
+
+    // Estimar a posição pela velocidade e proa do último relatório; sem isso, só navio parado é suprimido
+    @ConfigProperty(name = "suppression.dead-reckoning", defaultValue = "true")
+    boolean deadReckoning;
+
+    @ConfigProperty(name = "suppression.max-interval-seconds", defaultValue = "120")
+    int maxIntervalSeconds;
+
+    // Mesma janela da tabela de navios: navio esquecido por ela é esquecido aqui
+    @ConfigProperty(name = "vessels.stale-after-minutes", defaultValue = "30")
+    long staleAfterMinutes;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Vertx vertx;
+
+    // Último relatório que seguiu de cada navio (escrito só pelo consumidor da ingestão)
+    private final ConcurrentLongMap<Track> tracks = new ConcurrentLongMap<>();
+
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    static final class Track {
+        double lat, lon, sog;
+        int heading, shipType;
+        String name, flag, destination;
+        long at;
+
+        void set(PositionReport report, long at) {
+            lat = report.lat;
+            lon = report.lon;
+            sog = report.sog;
+            heading = report.trueHeading;
+            shipType = report.shipType;
+            name = report.shipName;
+            flag = report.flag;
+            destination = report.destination;
+            this.at = at;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        FunctionCounter.builder("ais.suppression.forwarded", forwarded, LongAdder::sum).register(registry);
+        FunctionCounter.builder("ais.suppression.suppressed", suppressed, LongAdder::sum)
+                .description("Relatórios descartados por não mudar nada além dos limites").register(registry);
+        Gauge.builder("ais.suppression.ratio", this, ReportSuppressor::suppressionRatio)
+                .description("Fração dos relatórios suprimidos desde o início").register(registry);
+        long staleAfterMs = TimeUnit.MINUTES.toMillis(staleAfterMinutes);
+        vertx.setPeriodic(TimeUnit.MINUTES.toMillis(5),
+                id -> evictOlderThan(System.currentTimeMillis() - staleAfterMs));
+    }
+
+    // true se o relatório deve seguir; "now" só é usado quando o relatório não traz time_utc
+    public boolean accept(PositionReport report, long now) {
+        if (!enabled) return true;
+        long at = report.reportedAt > 0 ? report.reportedAt : now;
+
+        Track track = tracks.get(report.mmsi);
+        if (track == null) {
+            track = new Track();
+            track.set(report, at);
+            tracks.put(report.mmsi, track);
+            forwarded.increment();
+            return true;
+        }
+
+        if (redundant(track, report, at)) {
+            suppressed.increment();
+            return false;
+        }
+        track.set(report, at);
+        forwarded.increment();
+        return true;
+    }
+
+    private boolean redundant(Track last, PositionReport report, long at) {
+        long elapsedMillis = at - last.at;
+        // Relatório fora de ordem (time_utc mais velho que o último que seguiu) não acrescenta nada
+        if (elapsedMillis < 0) return true;
+        if (elapsedMillis >= TimeUnit.SECONDS.toMillis(maxIntervalSeconds)) return false;
+
+        if (report.shipType != last.shipType || !Objects.equals(report.shipName, last.name)
+                || !Objects.equals(report.flag, last.flag) || !Objects.equals(report.destination, last.destination)) {
+            return false;
+        }
+        if (Math.abs(report.sog - last.sog) > speedKnots) return false;
+        if (headingDelta(report.trueHeading, last.heading) > headingDegrees) return false;
+
+        double expectedLat = last.lat, expectedLon = last.lon;
+        if (deadReckoning && elapsedMillis > 0 && last.heading != HEADING_UNAVAILABLE && last.sog > 0) {
+            double meters = last.sog * METERS_PER_SECOND_PER_KNOT * elapsedMillis / 1000.0;
+            double heading = Math.toRadians(last.heading);
+            expectedLat += Math.toDegrees(meters * Math.cos(heading) / EARTH_RADIUS_M);
+            expectedLon += Math.toDegrees(meters * Math.sin(heading) / (EARTH_RADIUS_M * Math.cos(Math.toRadians(last.lat))));
+        }
+        return distanceMeters(expectedLat, expectedLon, report.lat, report.lon) <= positionMeters;
+    }
+
+    // Diferença angular (0-180); proa indisponível em só um dos dois conta como mudança
+    static int headingDelta(int a, int b) {
+        if (a == b) return 0;
+        if (a == HEADING_UNAVAILABLE || b == HEADING_UNAVAILABLE) return 180;
+        int delta = Math.abs(a - b) % 360;
+        return delta > 180 ? 360 - delta : delta;
+    }
+
+    // Equiretangular: a escala aqui é de dezenas de metros, não precisa de haversine
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double x = Math.toRadians(lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return Math.sqrt(x * x + y * y) * EARTH_RADIUS_M;
+    }
+
+    public int evictOlderThan(long cutoff) {
+        return tracks.removeIf((mmsi, track) -> track.at < cutoff);
+    }
+
+    public long forwardedReports() { return forwarded.sum(); }
+    public long suppressedReports() { return suppressed.sum(); }
+
+    public double suppressionRatio() {
+        long s = suppressed.sum(), total = s + forwarded.sum();
+        return total == 0 ? 0 : (double) s / total;
+    }
+}
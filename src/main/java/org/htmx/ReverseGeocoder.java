@@ -0,0 +1,163 @@
+package org.htmx;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Geocodificação reversa da posição para o rótulo de localização ("Aproximação do porto de Santos",
+// "Próximo a São Paulo", "Bacia de Campos"...). Os polígonos vêm de geo/regions.json:
+//   port        aproximação de porto (~20 km em volta)
+//   state       faixa costeira de cada estado, da costa até ~60 km mar adentro
+//   waterway    lagoas e rios navegáveis
+//   offshore-basin  bacias de petróleo
+//   offshore    alto-mar de cada estado, até a borda da ZEE
+// Quando mais de um polígono contém o ponto vale o de maior prioridade (a ordem acima) e, empatados, o menor.
+//
+// Dois níveis: um índice em grade de 1° com os candidatos de cada célula, já ordenados, e um cache de
+// rótulos por célula de CACHE_CELL_DEG (~2 km). A célula é resolvida uma vez, pelo ponto central, e
+// daí em diante a consulta é um acesso a array. O cache é um byte[] sem lock: duas threads que
+// resolvem a mesma célula ao mesmo tempo escrevem o mesmo valor.
+final class ReverseGeocoder {
+
+    static final String RESOURCE = "geo/regions.json";
+    static final String OUTSIDE = "Fora da costa brasileira";
+
+    static final double INDEX_CELL_DEG = 1.0;
+    static final double CACHE_CELL_DEG = 0.02;
+
+    private static final Map<String, Integer> PRIORITY = Map.of(
+            "port", 0, "state", 1, "waterway", 1, "offshore-basin", 2, "offshore", 3);
+
+    private static final class Holder {
+        static final ReverseGeocoder INSTANCE = load();
+    }
+
+    private record Region(String label, int labelIndex, int priority, double area,
+                          double minLat, double minLon, double maxLat, double maxLon, double[] lats, double[] lons) {
+
+        // Ray casting (lat como y, lon como x)
+        boolean contains(double lat, double lon) {
+            if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon) return false;
+            boolean inside = false;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                if ((lats[i] > lat) != (lats[j] > lat)
+                        && lon < (lons[j] - lons[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lons[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+    }
+
+    private final String[] labels;
+    private final int indexRows = (int) Math.ceil((VesselGrid.MAX_LAT - VesselGrid.MIN_LAT) / INDEX_CELL_DEG);
+    private final int indexCols = (int) Math.ceil((VesselGrid.MAX_LON - VesselGrid.MIN_LON) / INDEX_CELL_DEG);
+    private final Region[][] index = new Region[indexRows * indexCols][];
+
+    private final int cacheRows = (int) Math.round((VesselGrid.MAX_LAT - VesselGrid.MIN_LAT) / CACHE_CELL_DEG);
+    private final int cacheCols = (int) Math.round((VesselGrid.MAX_LON - VesselGrid.MIN_LON) / CACHE_CELL_DEG);
+    // Índice do rótulo + 1; 0 = célula ainda não resolvida
+    private final byte[] cache = new byte[cacheRows * cacheCols];
+
+    // Rótulo da posição; fora da área coberta (ou coordenada inválida), OUTSIDE
+    static String locate(double lat, double lon) {
+        return Holder.INSTANCE.find(lat, lon);
+    }
+
+    ReverseGeocoder(JsonNode root) {
+        Map<String, Integer> labelIndex = new LinkedHashMap<>();
+        labelIndex.put(OUTSIDE, 0);
+        List<Region> regions = new ArrayList<>();
+
+        for (JsonNode node : root.path("regions")) {
+            String label = node.path("label").asText();
+            Integer priority = PRIORITY.get(node.path("kind").asText());
+            JsonNode polygon = node.path("polygon");
+            if (label.isEmpty() || priority == null || polygon.size() < 3) {
+                throw new IllegalArgumentException("Região inválida em " + RESOURCE + ": " + node);
+            }
+            double[] lats = new double[polygon.size()], lons = new double[polygon.size()];
+            for (int i = 0; i < lats.length; i++) {
+                lats[i] = polygon.get(i).get(0).asDouble();
+                lons[i] = polygon.get(i).get(1).asDouble();
+            }
+            int index = labelIndex.computeIfAbsent(label, l -> labelIndex.size());
+            regions.add(new Region(label, index, priority, area(lats, lons),
+                    Arrays.stream(lats).min().orElseThrow(), Arrays.stream(lons).min().orElseThrow(),
+                    Arrays.stream(lats).max().orElseThrow(), Arrays.stream(lons).max().orElseThrow(), lats, lons));
+        }
+        // O cache guarda o índice num byte (0 reservado)
+        if (labelIndex.size() > 255) throw new IllegalArgumentException("Rótulos demais em " + RESOURCE);
+        labels = labelIndex.keySet().toArray(new String[0]);
+
+        regions.sort(Comparator.comparingInt(Region::priority).thenComparingDouble(Region::area));
+        List<Region> candidates = new ArrayList<>();
+        for (int r = 0; r < indexRows; r++) {
+            double cellMinLat = VesselGrid.MIN_LAT + r * INDEX_CELL_DEG;
+            for (int c = 0; c < indexCols; c++) {
+                double cellMinLon = VesselGrid.MIN_LON + c * INDEX_CELL_DEG;
+                candidates.clear();
+                for (Region region : regions) {
+                    if (region.maxLat >= cellMinLat && region.minLat <= cellMinLat + INDEX_CELL_DEG
+                            && region.maxLon >= cellMinLon && region.minLon <= cellMinLon + INDEX_CELL_DEG) {
+                        candidates.add(region);
+                    }
+                }
+                index[r * indexCols + c] = candidates.toArray(new Region[0]);
+            }
+        }
+    }
+
+    static ReverseGeocoder load() {
+        try (InputStream in = ReverseGeocoder.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in == null) throw new IllegalStateException("Recurso " + RESOURCE + " não encontrado");
+            return new ReverseGeocoder(new ObjectMapper().readTree(in));
+        } catch (IOException e) {
+            throw new IllegalStateException("Não foi possível ler " + RESOURCE, e);
+        }
+    }
+
+    String find(double lat, double lon) {
+        // Também recusa NaN: nenhuma comparação com NaN é verdadeira
+        if (!(lat >= VesselGrid.MIN_LAT && lat < VesselGrid.MAX_LAT && lon >= VesselGrid.MIN_LON && lon < VesselGrid.MAX_LON)) {
+            return OUTSIDE;
+        }
+        int row = Math.min((int) ((lat - VesselGrid.MIN_LAT) / CACHE_CELL_DEG), cacheRows - 1);
+        int col = Math.min((int) ((lon - VesselGrid.MIN_LON) / CACHE_CELL_DEG), cacheCols - 1);
+        int cell = row * cacheCols + col;
+
+        int cached = cache[cell] & 0xFF;
+        if (cached != 0) return labels[cached - 1];
+
+        int label = resolve(VesselGrid.MIN_LAT + (row + 0.5) * CACHE_CELL_DEG, VesselGrid.MIN_LON + (col + 0.5) * CACHE_CELL_DEG);
+        cache[cell] = (byte) (label + 1);
+        return labels[label];
+    }
+
+    // Sem cache: primeiro polígono (na ordem de prioridade) que contém o ponto
+    private int resolve(double lat, double lon) {
+        int row = Math.min((int) ((lat - VesselGrid.MIN_LAT) / INDEX_CELL_DEG), indexRows - 1);
+        int col = Math.min((int) ((lon - VesselGrid.MIN_LON) / INDEX_CELL_DEG), indexCols - 1);
+        for (Region region : index[row * indexCols + col]) {
+            if (region.contains(lat, lon)) return region.labelIndex;
+        }
+        return 0;
+    }
+
+    // Shoelace, em graus²: só serve para desempatar (menor vence)
+    private static double area(double[] lats, double[] lons) {
+        double sum = 0;
+        for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+            sum += (lons[j] + lons[i]) * (lats[j] - lats[i]);
+        }
+        return Math.abs(sum / 2);
+    }
+}
@@ -1,39 +1,145 @@
 package org.htmx;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.qute.CheckedTemplate;
+import io.quarkus.qute.TemplateInstance;
 import io.quarkus.websockets.next.OnClose;
 import io.quarkus.websockets.next.OnOpen;
+import io.quarkus.websockets.next.OnTextMessage;
 import io.quarkus.websockets.next.WebSocket;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.vertx.core.Vertx;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+// Terminais do radar. Cada terminal assina uma região/categorias/velocidade mínima (mensagem SUBSCRIBE)
+// e só recebe o que casa com ela: entradas novas para navios que ainda não estão na sua tela, e deltas
+// por campo (posição, velocidade, destino...) para os que já estão. O roteamento usa o SubscriptionIndex,
+// então o custo de cada tick depende de quantos terminais olham para onde o navio está, não do total.
 @ApplicationScoped
 @WebSocket(path = "/ships-ws")
 public class ShipRadarServer {
 
-    private static final List<WebSocketConnection> connections = new CopyOnWriteArrayList<>();
-    private static final AtomicInteger shipCount = new AtomicInteger(0);
-    private static final List<ShipData> recentShips = new CopyOnWriteArrayList<>();
-    private static final int MAX_SHIPS_CACHE = 50;
+    private static final Logger LOG = Logger.getLogger(ShipRadarServer.class);
+
+    @Inject
+    FanoutService fanout;
+
+    @Inject
+    VesselStateStore vessels;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    MeterRegistry registry;
+
+    // Intervalo entre frames enviados aos terminais; as detecções do intervalo vão juntas num só frame
+    @ConfigProperty(name = "radar.flush-interval-ms", defaultValue = "250")
+    long flushIntervalMs;
+
+    // Máximo de entradas novas por frame de cada terminal (o resto fica adiado para os ticks seguintes)
+    @ConfigProperty(name = "radar.max-detections-per-flush", defaultValue = "50")
+    int maxDetectionsPerFlush;
+
+    // Entradas na tela de cada terminal; passou disso, a atualizada há mais tempo é removida
+    @ConfigProperty(name = "radar.max-entries-per-viewer", defaultValue = "200")
+    int maxEntriesPerViewer;
+
+    private static final int SNAPSHOT_SIZE = 20;
+
+    // Terminais do radar, cada um com sua fila de saída
+    private FanoutGroup terminals;
+    private final Map<String, RadarViewer> viewers = new ConcurrentHashMap<>();
+    private final SubscriptionIndex<RadarViewer> subscriptions = new SubscriptionIndex<>();
+
+    // Detecções pendentes do tick atual, uma por MMSI, em ordem de chegada (protegido por "this")
+    private final Map<Long, ShipData> pending = new LinkedHashMap<>();
+    // Último estado de cada navio que saiu num frame: base dos deltas
+    private final ConcurrentLongMap<ShipData> flushed = new ConcurrentLongMap<>();
+    // Terminais com entradas novas adiadas pelo limite por frame (só a thread do flush mexe)
+    private final List<RadarViewer> deferring = new ArrayList<>();
+    private int lastSentCount = -1;
+    private Timer fanoutTimer;
+    private Counter frameBytes;
+
+    // Snapshot da costa inteira enviado a cada terminal novo. A tabela muda a cada relatório, então ele é
+    // remontado no flush (no máximo uma vez por tick), não por terminal que conecta
+    private volatile Snapshot snapshot;
+    private volatile long snapshotVersion = -1;
+
+    private record Snapshot(String html, List<ShipData> ships) {}
+
+    public static class RadarMessage {
+        public String type;
+        public String region;
+        public String types;
+        public String minSpeed;
+    }
+
+    @PostConstruct
+    void init() {
+        terminals = fanout.group("radar");
+        fanoutTimer = Timer.builder("radar.fanout")
+                .description("Roteamento e enfileiramento de um tick do radar para os terminais interessados")
+                .publishPercentileHistogram().register(registry);
+        frameBytes = Counter.builder("radar.frame.bytes").baseUnit("bytes")
+                .description("Caracteres enfileirados para os terminais do radar").register(registry);
+        maxEntriesPerViewer = Math.max(maxEntriesPerViewer, maxDetectionsPerFlush);
+        vertx.setPeriodic(flushIntervalMs, id -> flush());
+        // Base de deltas de navios que já saíram da tabela não serve para mais nada
+        vertx.setPeriodic(TimeUnit.MINUTES.toMillis(1), id -> flushed.removeIf((mmsi, ship) -> !vessels.contains(mmsi)));
+    }
+
+    @CheckedTemplate
+    static class Templates {
+        // templates/ShipRadarServer/shipEntry.html
+        static native TemplateInstance shipEntry(ShipData ship);
+        // templates/ShipRadarServer/shipDelta.html
+        static native TemplateInstance shipDelta(ShipData ship, boolean identity, boolean location,
+                                                 boolean position, boolean movement, boolean destination);
+    }
+
+    private static final String WELCOME_SNAPSHOT = """
+            <div id="radar-log" hx-swap-oob="innerHTML">
+                <div class="alert-entry welcome-msg" style="color: #94a3b8; text-align: center;">
+                    <span class="status-dot"></span>✅ Conectado! Monitorando...
+                </div>
+            </div>
+            """;
 
     public static class ShipData {
         public String name;
-        public String mmsi;
+        public long mmsi;
         public double lat;
         public double lon;
         public String flag;
         public String shipType;
+        public int typeCode;        // código AIS do tipo de navio
         public String destination;
         public double speedKmh;
         public String direction;
         public String location;
-        public LocalDateTime timestamp;
+        public long lastSeen;
+        public String fragment;
 
-        public ShipData(String name, String mmsi, double lat, double lon, String flag,
+        public ShipData(String name, long mmsi, double lat, double lon, String flag,
                         String shipType, String destination, double speedKmh,
                         String direction, String location) {
             this.name = name;
@@ -46,95 +152,329 @@ public class ShipRadarServer {
             this.speedKmh = speedKmh;
             this.direction = direction;
             this.location = location;
-            this.timestamp = LocalDateTime.now();
-        }
-
-        public String toHtml(int index) {
-            return """
-                <div class="alert-entry" data-type="%s">
-                    <div style="display: flex; justify-content: space-between; align-items: start;">
-                        <div style="flex: 1;">
-                            <span class="blink">[DETECTADO]</span> 
-                            %s <strong>%s</strong> %s
-                            <br>
-                            <small style="color: #5588aa;">
-                                📍 %s | MMSI: %s
-                                <br>
-                                ⚡ %.0f km/h %s | 🎯 %s
-                            </small>
-                        </div>
-                    </div>
-                </div>
-                """.formatted(shipType.toLowerCase(), flag, name, shipType, location, mmsi, speedKmh, direction, destination);
+            this.lastSeen = System.currentTimeMillis();
+        }
+
+        public ShipData copy() {
+            ShipData copy = new ShipData(name, mmsi, lat, lon, flag, shipType, destination, speedKmh, direction, location);
+            copy.typeCode = typeCode;
+            copy.lastSeen = lastSeen;
+            copy.fragment = fragment;
+            return copy;
+        }
+
+        // Atualização in-place com os dados de um relatório mais novo do mesmo navio
+        public void copyFrom(ShipData other) {
+            this.name = other.name;
+            this.lat = other.lat;
+            this.lon = other.lon;
+            this.flag = other.flag;
+            this.shipType = other.shipType;
+            this.typeCode = other.typeCode;
+            this.destination = other.destination;
+            this.speedKmh = other.speedKmh;
+            this.direction = other.direction;
+            this.location = other.location;
+            this.lastSeen = other.lastSeen;
+            this.fragment = other.fragment;
+        }
+
+        // Classe CSS usada pelos filtros do radar
+        public String dataType() {
+            return shipType.toLowerCase();
+        }
+
+        public String speedLabel() {
+            return String.format("%.0f", speedKmh);
+        }
+
+        public String positionLabel() {
+            return String.format(Locale.ROOT, "%.3f, %.3f", lat, lon);
+        }
+
+        // Fragmento renderizado uma única vez por relatório e compartilhado por todas as conexões
+        public String toHtml() {
+            String html = fragment;
+            if (html == null) fragment = html = Templates.shipEntry(this).render();
+            return html;
         }
     }
 
+    // Quem conecta assina a costa inteira até mandar um SUBSCRIBE.
+    // Snapshot e troca de assinatura renderizam templates: virtual thread, como os callbacks do chat
     @OnOpen
+    @RunOnVirtualThread
     void onOpen(WebSocketConnection connection) {
-        connections.add(connection);
-        System.out.println("✅ Novo terminal conectado");
-        sendCachedShips(connection);
-        connection.sendTextAndAwait("<div id=\"ship-count\" hx-swap-oob=\"innerHTML\">" + shipCount.get() + "</div>");
+        terminals.join(connection);
+        RadarViewer viewer = new RadarViewer(connection, RadarSubscription.COAST, maxEntriesPerViewer);
+        viewers.put(connection.id(), viewer);
+        LOG.info("✅ Novo terminal conectado");
+        synchronized (viewer) {
+            Snapshot coast = coastSnapshot();
+            viewer.reset(RadarSubscription.COAST, coast.ships());
+            subscriptions.add(viewer, RadarSubscription.COAST);
+            terminals.send(connection, coast.html() + subscriptionLabel(RadarSubscription.COAST) + countHtml(vessels.size()));
+        }
     }
 
     @OnClose
     void onClose(WebSocketConnection connection) {
-        connections.remove(connection);
+        RadarViewer viewer = viewers.remove(connection.id());
+        if (viewer != null) {
+            synchronized (viewer) {
+                subscriptions.remove(viewer, viewer.subscription);
+            }
+        }
+        terminals.leave(connection);
+    }
+
+    // {"type": "SUBSCRIBE", "region": "santos", "types": "carga,petroleiro", "minSpeed": "10"}
+    @OnTextMessage
+    @RunOnVirtualThread
+    void onMessage(RadarMessage message, WebSocketConnection connection) {
+        RadarViewer viewer = viewers.get(connection.id());
+        if (viewer == null || !"SUBSCRIBE".equals(message.type)) return;
+
+        RadarSubscription subscription = RadarSubscription.parse(message.region, message.types, message.minSpeed);
+        if (subscription == null) {
+            terminals.send(connection, "<span id=\"radar-subscription\" hx-swap-oob=\"innerHTML\">⚠️ Filtro inválido</span>");
+            return;
+        }
+        subscribe(viewer, subscription);
+    }
+
+    // Troca a assinatura e substitui a tela pelo snapshot do que casa com ela
+    void subscribe(RadarViewer viewer, RadarSubscription subscription) {
+        List<ShipData> ships;
+        String html;
+        if (subscription.equals(RadarSubscription.COAST)) {
+            Snapshot coast = coastSnapshot();
+            ships = coast.ships();
+            html = coast.html();
+        } else {
+            ships = new ArrayList<>(SNAPSHOT_SIZE);
+            for (ShipData ship : vessels.withinBox(subscription.minLat(), subscription.minLon(),
+                    subscription.maxLat(), subscription.maxLon())) {
+                if (!subscription.matches(ship)) continue;
+                ships.add(ship);
+                if (ships.size() == SNAPSHOT_SIZE) break;
+            }
+            html = snapshotHtml(ships, "<div class=\"alert-entry welcome-msg\" style=\"color: #94a3b8; text-align: center;\">"
+                    + "Nenhum navio neste filtro por enquanto...</div>");
+        }
+
+        synchronized (viewer) {
+            subscriptions.remove(viewer, viewer.subscription);
+            viewer.reset(subscription, ships);
+            subscriptions.add(viewer, subscription);
+            terminals.send(viewer.connection, html + subscriptionLabel(subscription));
+        }
     }
 
-    public void broadcastAlert(String name, String mmsi, double lat, double lon, String flag,
-                               String shipType, String destination, double speedKmh, String direction) {
-        int currentCount = shipCount.incrementAndGet();
-        String location = getLocationInBrazil(lat, lon);
+    public void broadcastAlert(String name, long mmsi, double lat, double lon, String flag,
+                               String shipType, int typeCode, String destination, double speedKmh, String direction) {
+        String location = ReverseGeocoder.locate(lat, lon);
 
         ShipData shipData = new ShipData(name, mmsi, lat, lon, flag, shipType, destination, speedKmh, direction, location);
-        recentShips.add(0, shipData);
-        if (recentShips.size() > MAX_SHIPS_CACHE) recentShips.remove(MAX_SHIPS_CACHE);
+        shipData.typeCode = typeCode;
+        shipData.toHtml();  // renderiza antes de entrar na tabela: cópias e snapshots reaproveitam o fragmento
+        vessels.update(shipData);
 
-        if (connections.isEmpty()) return;
+        if (viewers.isEmpty()) return;
 
-        String html = """
-            <div id="radar-log" hx-swap-oob="afterbegin">%s</div>
-            <div id="ship-count" hx-swap-oob="innerHTML">%d</div>
-            """.formatted(shipData.toHtml(currentCount), currentCount);
+        // Várias atualizações do mesmo navio no mesmo tick viram uma só (a mais recente)
+        synchronized (this) {
+            pending.remove(mmsi);
+            pending.put(mmsi, shipData);
+        }
+    }
 
-        connections.forEach(c -> { if (c.isOpen()) c.sendTextAndAwait(html); });
+    // Warm restart: reconstrói o estado a partir do journal, sem contar detecção nem avisar os terminais
+    public void restore(PositionReport report, long recordedAt) {
+        ShipData shipData = new ShipData(report.shipName, report.mmsi, report.lat, report.lon, report.flag,
+                ShipTrackerClient.getShipType(report.shipType), report.destination, report.speedKmh(),
+                ShipTrackerClient.getDirection(report.trueHeading), ReverseGeocoder.locate(report.lat, report.lon));
+        shipData.typeCode = report.shipType;
+        shipData.lastSeen = recordedAt;
+        shipData.toHtml();
+        vessels.restore(shipData);
     }
 
-    private void sendCachedShips(WebSocketConnection connection) {
-        if (recentShips.isEmpty()) {
-            connection.sendTextAndAwait("""
-                <div id="radar-log" hx-swap-oob="innerHTML">
-                    <div class="alert-entry welcome-msg" style="color: #94a3b8; text-align: center;">
-                        <span class="status-dot"></span>✅ Conectado! Monitorando...
-                    </div>
-                </div>
-                """);
-            return;
+    // Um frame por tick e por terminal interessado: deltas, remoções, entradas novas e o ship-count
+    void flush() {
+        List<ShipData> batch;
+        synchronized (this) {
+            batch = pending.isEmpty() ? List.of() : new ArrayList<>(pending.values());
+            pending.clear();
         }
+        // Depois de esvaziar pending: o snapshot já tem tudo que este batch leva e o resto sai no próximo tick
+        refreshSnapshot();
+
+        List<RadarViewer> retry = deferring.isEmpty() ? List.of() : new ArrayList<>(deferring);
+        deferring.clear();
 
-        StringBuilder html = new StringBuilder();
-        int limit = Math.min(20, recentShips.size());
-        for (int i = 0; i < limit; i++) html.append(recentShips.get(i).toHtml(shipCount.get() - i));
-        connection.sendTextAndAwait("<div id=\"radar-log\" hx-swap-oob=\"innerHTML\">" + html + "</div>");
+        int currentCount = vessels.size();
+        boolean countChanged = currentCount != lastSentCount;
+        if (batch.isEmpty() && retry.isEmpty() && !countChanged) return;
+        lastSentCount = currentCount;
+        if (viewers.isEmpty()) return;
+
+        long start = System.nanoTime();
+        List<RadarViewer> touched = new ArrayList<>();
+        // Primeiro o que ficou adiado no tick anterior, com o último estado que saiu em frame (a base
+        // dos deltas); uma atualização do mesmo navio neste tick vira delta em cima dessa entrada
+        for (RadarViewer viewer : retry) {
+            synchronized (viewer) {
+                if (viewers.get(viewer.connection.id()) != viewer) continue;
+                for (ShipData ship : viewer.takeDeferred()) {
+                    ShipData latest = flushed.get(ship.mmsi);
+                    if (latest != null) route(viewer, new ShipUpdate(latest, latest), touched);
+                }
+            }
+        }
+        for (ShipData ship : batch) {
+            ShipData previous = flushed.put(ship.mmsi, ship);
+            ShipUpdate update = new ShipUpdate(ship, previous);
+            double oldLat = previous != null ? previous.lat : ship.lat;
+            double oldLon = previous != null ? previous.lon : ship.lon;
+            subscriptions.forEachCandidate(ship.lat, ship.lon, oldLat, oldLon, viewer -> route(viewer, update, touched));
+        }
+
+        // Só enfileira: o envio acontece de forma assíncrona por conexão
+        String countHtml = countChanged ? countHtml(currentCount) : null;
+        Collection<RadarViewer> targets = countChanged ? viewers.values() : touched;
+        long bytes = 0;
+        for (RadarViewer viewer : targets) {
+            synchronized (viewer) {
+                String frame = viewer.takeFrame(countHtml);
+                if (frame == null) continue;
+                terminals.send(viewer.connection, frame);
+                bytes += frame.length();
+            }
+        }
+        frameBytes.increment(bytes);
+        fanoutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void route(RadarViewer viewer, ShipUpdate update, List<RadarViewer> touched) {
+        ShipData ship = update.ship;
+        synchronized (viewer) {
+            boolean matches = viewer.subscription.matches(ship);
+            boolean shown = viewer.shows(ship.mmsi);
+            if (matches && shown) {
+                viewer.refresh(ship.mmsi);
+                viewer.append(update.delta());
+            } else if (matches) {
+                if (viewer.addedCount() >= maxDetectionsPerFlush) {
+                    if (viewer.defer(ship)) deferring.add(viewer);
+                    return;
+                }
+                long evicted = viewer.show(ship);
+                if (evicted != RadarViewer.NONE) viewer.append(removeHtml(evicted));
+            } else if (shown) {
+                // Saiu da região ou deixou de casar com o filtro
+                viewer.hide(ship.mmsi);
+                viewer.append(removeHtml(ship.mmsi));
+            } else {
+                viewer.undefer(ship.mmsi);
+                return;
+            }
+            if (!viewer.touched) {
+                viewer.touched = true;
+                touched.add(viewer);
+            }
+        }
     }
 
-    private String getLocationInBrazil(double lat, double lon) {
-        if (lat < -27) return "Próximo ao Rio Grande do Sul";
-        if (lat < -25) return "Próximo a Santa Catarina";
-        if (lat < -24) return "Próximo ao Paraná";
-        if (lat < -22) return "Próximo a São Paulo";
-        if (lat < -20) return "Próximo ao Rio de Janeiro";
-        if (lat < -18) return "Próximo ao Espírito Santo";
-        if (lat < -12) return "Próximo à Bahia";
-        if (lat < -9) return "Próximo a Sergipe/Alagoas";
-        if (lat < -7) return "Próximo a Pernambuco";
-        if (lat < -5) return "Próximo a Paraíba/RN";
-        if (lat < -3) return "Próximo ao Ceará";
-        if (lat < 0) return "Próximo ao Maranhão";
-        return "Próximo ao Pará/Amapá";
+    // Uma atualização de navio no tick; o delta é renderizado uma vez e compartilhado entre os terminais
+    private static final class ShipUpdate {
+        final ShipData ship;
+        final ShipData previous;
+        String delta;
+
+        ShipUpdate(ShipData ship, ShipData previous) {
+            this.ship = ship;
+            this.previous = previous;
+        }
+
+        // Só os campos que mudaram desde o último frame; sem base (navio veio do snapshot), todos
+        String delta() {
+            String html = delta;
+            if (html != null) return html;
+            ShipData p = previous;
+            boolean identity = p == null || !Objects.equals(p.name, ship.name) || !Objects.equals(p.flag, ship.flag)
+                    || !Objects.equals(p.shipType, ship.shipType);
+            boolean location = p == null || !Objects.equals(p.location, ship.location);
+            boolean position = p == null || !p.positionLabel().equals(ship.positionLabel());
+            boolean movement = p == null || !p.speedLabel().equals(ship.speedLabel()) || !Objects.equals(p.direction, ship.direction);
+            boolean destination = p == null || !Objects.equals(p.destination, ship.destination);
+            html = identity || location || position || movement || destination
+                    ? Templates.shipDelta(ship, identity, location, position, movement, destination).render() : "";
+            return delta = html;
+        }
     }
 
-    public int getTotalShips() { return shipCount.get(); }
-    public List<ShipData> getRecentShips() { return List.copyOf(recentShips); }
+    private static String removeHtml(long mmsi) {
+        return "<div id=\"ship-" + mmsi + "\" hx-swap-oob=\"delete\"></div>";
+    }
+
+    private static String countHtml(int count) {
+        return "<div id=\"ship-count\" hx-swap-oob=\"innerHTML\">" + count + "</div>";
+    }
+
+    private static String subscriptionLabel(RadarSubscription subscription) {
+        return "<span id=\"radar-subscription\" hx-swap-oob=\"innerHTML\">" + subscription.describe() + "</span>";
+    }
+
+    private static String snapshotHtml(List<ShipData> ships, String whenEmpty) {
+        if (ships.isEmpty()) return "<div id=\"radar-log\" hx-swap-oob=\"innerHTML\">" + whenEmpty + "</div>";
+        StringBuilder html = new StringBuilder("<div id=\"radar-log\" hx-swap-oob=\"innerHTML\">");
+        for (ShipData ship : ships) html.append(ship.toHtml());
+        return html.append("</div>").toString();
+    }
+
+    // O que entrou na tabela depois do snapshot ainda está em pending e chega no próximo frame
+    private Snapshot coastSnapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : buildSnapshot();
+    }
+
+    private void refreshSnapshot() {
+        // Sem terminais, ninguém recebe os frames que cobririam um snapshot velho: o próximo monta o seu
+        if (viewers.isEmpty()) {
+            snapshot = null;
+            return;
+        }
+        if (snapshot == null || snapshotVersion != vessels.version()) buildSnapshot();
+    }
+
+    private Snapshot buildSnapshot() {
+        long version = vessels.version();
+        List<ShipData> recentShips = vessels.recent(SNAPSHOT_SIZE);
+        Snapshot current = recentShips.isEmpty()
+                ? new Snapshot(WELCOME_SNAPSHOT, List.of())
+                : new Snapshot(snapshotHtml(recentShips, ""), recentShips);
+
+        // Corrida benigna: dois terminais simultâneos podem montar o mesmo snapshot
+        snapshot = current;
+        snapshotVersion = version;
+        return current;
+    }
+
+    // Navios distintos na tabela (não relatórios recebidos)
+    public int getTotalShips() { return vessels.size(); }
+    // Navios distintos de toda a costa, do mais recente para o mais antigo
+    public List<ShipData> getRecentShips() { return vessels.all(); }
+    public List<ShipData> getRecentShips(int limit) { return vessels.recent(limit); }
+    public int getTrackedShips() { return vessels.size(); }
+
+    // Busca textual (índice invertido mantido pelo VesselStateStore)
+    public VesselStateStore.SearchPage searchShips(String query, int page, int pageSize) { return vessels.search(query, page, pageSize); }
+
+    // Consultas espaciais (índice em grade mantido pelo VesselStateStore)
+    public List<VesselHit> findShipsNear(double lat, double lon, double radiusKm) { return vessels.withinRadius(lat, lon, radiusKm); }
+    public List<VesselHit> findNearestShips(double lat, double lon, int k) { return vessels.nearest(lat, lon, k); }
+    public List<ShipData> findShipsInArea(double minLat, double minLon, double maxLat, double maxLon) {
+        return vessels.withinBox(minLat, minLon, maxLat, maxLon);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package org.htmx;
+
+import io.quarkus.qute.Template;
+import io.vertx.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Estatísticas de navios alimentadas pela ingestão, para o painel lateral do chat.
+// Contadores por código de tipo AIS (LongAdder, sem contenção entre threads),
+// navios distintos por categoria e taxa de relatórios no último minuto.
+// O painel recebe no máximo um push por intervalo, e só quando algo mudou.
+@ApplicationScoped
+public class ShipStats {
+
+    private static final int TYPE_CODES = 100;
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    @ConfigProperty(name = "stats.push-interval-ms", defaultValue = "2000")
+    long pushIntervalMs;
+
+    @Inject
+    Template shipstats;
+
+    @Inject
+    ChatRooms rooms;
+
+    @Inject
+    Vertx vertx;
+
+    // Relatórios recebidos e navios distintos rastreados, por código de tipo AIS
+    private final LongAdder[] reportsByType = newAdders();
+    private final LongAdder[] vesselsByType = newAdders();
+
+    // Janela deslizante de 60 s: contagem e segundo de referência de cada balde
+    private final AtomicLongArray rateCounts = new AtomicLongArray(RATE_WINDOW_SECONDS);
+    private final AtomicLongArray rateSeconds = new AtomicLongArray(RATE_WINDOW_SECONDS);
+
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private long lastPushedPerMinute = -1;  // só acessado pelo timer
+
+    @PostConstruct
+    void init() {
+        vertx.setPeriodic(pushIntervalMs, id -> pushIfDirty());
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[TYPE_CODES];
+        for (int i = 0; i < TYPE_CODES; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    private static int index(int typeCode) {
+        return typeCode >= 0 && typeCode < TYPE_CODES ? typeCode : 0;
+    }
+
+    // Mesmas faixas usadas no rótulo do ShipTrackerClient.getShipType
+    static boolean isCargo(int typeCode) {
+        return typeCode >= 70 && typeCode <= 79;
+    }
+
+    static boolean isTanker(int typeCode) {
+        return typeCode == 54 || (typeCode >= 80 && typeCode <= 89);
+    }
+
+    // Chamado pelo consumidor da ingestão a cada relatório
+    public void recordReport(int typeCode) {
+        reportsByType[index(typeCode)].increment();
+
+        long second = System.currentTimeMillis() / 1000;
+        int bucket = (int) (second % RATE_WINDOW_SECONDS);
+        long stamp = rateSeconds.get(bucket);
+        if (stamp != second && rateSeconds.compareAndSet(bucket, stamp, second)) rateCounts.set(bucket, 0);
+        rateCounts.incrementAndGet(bucket);
+
+        dirty.set(true);
+    }
+
+    // Chamados pelo VesselStateStore quando o conjunto de navios distintos muda
+    void vesselAdded(int typeCode) {
+        vesselsByType[index(typeCode)].increment();
+        dirty.set(true);
+    }
+
+    void vesselRemoved(int typeCode) {
+        vesselsByType[index(typeCode)].decrement();
+        dirty.set(true);
+    }
+
+    void vesselTypeChanged(int oldTypeCode, int newTypeCode) {
+        vesselsByType[index(oldTypeCode)].decrement();
+        vesselsByType[index(newTypeCode)].increment();
+        dirty.set(true);
+    }
+
+    public long totalVessels() {
+        long total = 0;
+        for (LongAdder adder : vesselsByType) total += adder.sum();
+        return total;
+    }
+
+    public long cargoVessels() {
+        long total = 0;
+        for (int code = 70; code <= 79; code++) total += vesselsByType[code].sum();
+        return total;
+    }
+
+    public long tankerVessels() {
+        long total = vesselsByType[54].sum();
+        for (int code = 80; code <= 89; code++) total += vesselsByType[code].sum();
+        return total;
+    }
+
+    public long reports(int typeCode) {
+        return reportsByType[index(typeCode)].sum();
+    }
+
+    public long reportsLastMinute() {
+        long now = System.currentTimeMillis() / 1000;
+        long total = 0;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            if (now - rateSeconds.get(i) < RATE_WINDOW_SECONDS) total += rateCounts.get(i);
+        }
+        return total;
+    }
+
+    public String render() {
+        return shipstats
+                .data("total", totalVessels())
+                .data("cargo", cargoVessels())
+                .data("tankers", tankerVessels())
+                .data("perMinute", reportsLastMinute())
+                .render();
+    }
+
+    // A taxa do último minuto cai sozinha quando o feed para, por isso também conta como mudança
+    void pushIfDirty() {
+        long perMinute = reportsLastMinute();
+        if (!dirty.getAndSet(false) && perMinute == lastPushedPerMinute) return;
+        lastPushedPerMinute = perMinute;
+
+        if (rooms.isEmpty()) return;
+        rooms.broadcastAll("stats", render());
+    }
+}
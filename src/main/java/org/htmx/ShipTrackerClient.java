@@ -1,148 +1,146 @@
 package org.htmx;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.websockets.next.OnBinaryMessage;
-import io.quarkus.websockets.next.OnOpen;
+import io.quarkus.websockets.next.OnClose;
 import io.quarkus.websockets.next.OnTextMessage;
 import io.quarkus.websockets.next.WebSocketClient;
 import io.quarkus.websockets.next.WebSocketClientConnection;
+import io.smallrye.common.annotation.NonBlocking;
 import io.vertx.core.buffer.Buffer;
+import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
-import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 
 @WebSocketClient(path = "/v0/stream", clientId = "ship-tracker")
 public class ShipTrackerClient {
 
+    private static final Logger LOG = Logger.getLogger(ShipTrackerClient.class);
+
+    @Inject
+    IngestPipeline pipeline;
+
     @Inject
-    ShipRadarServer radarServer;
+    UpstreamSupervisor supervisor;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Counter messages;
+    private Counter decodeErrors;
+    private Timer decodeTimer;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
+    // O endpoint é um só para todos os shards: decoder e relatório reutilizado ficam por conexão
+    // (mensagens de uma conexão chegam em série, no event loop dela)
+    private final Map<String, ShardConnection> shards = new ConcurrentHashMap<>();
+
+    private final class ShardConnection {
+        final int index;
+        final AisDecoder decoder = new AisDecoder(mapper.getFactory());
+        final PositionReport report = new PositionReport();
+
+        ShardConnection(int index) {
+            this.index = index;
+        }
+    }
+
     @ConfigProperty(name = "aisstream.api.key")
     String apiKey;
 
-    @OnOpen
-    void onOpen(WebSocketClientConnection connection) {
-        System.out.println("🌐 Conectado ao servidor da AISStream. Enviando subscrição...");
+    @PostConstruct
+    void init() {
+        messages = Counter.builder("ais.upstream.messages").description("Frames recebidos da AISStream").register(registry);
+        decodeErrors = Counter.builder("ais.upstream.decode.errors").register(registry);
+        decodeTimer = Timer.builder("ais.upstream.decode").publishPercentileHistogram().register(registry);
+    }
 
-        try {
-            ObjectNode subscription = mapper.createObjectNode();
-            subscription.put("APIKey", apiKey);
+    // Chamado pelo UpstreamSupervisor quando a conexão de um shard abre. A faixa fica num mapa por conexão
+    // (o handshake com a AISStream não leva nada nosso) e a subscrição vai logo em seguida
+    void subscribe(WebSocketClientConnection connection, int shard) {
+        shards.put(connection.id(), new ShardConnection(shard));
+        // Fechou antes de entrar no mapa: o onClose não achou o shard, então quem avisa o supervisor é aqui
+        if (connection.isClosed()) {
+            if (shards.remove(connection.id()) != null) supervisor.onDisconnected(shard);
+            return;
+        }
 
-            ArrayNode boundingBoxes = mapper.createArrayNode();
+        double[][] box = supervisor.boundingBox(shard);
+        LOG.info("🌐 Shard " + shard + " conectado à AISStream. Enviando subscrição...");
 
-            // 🇧🇷 ÁREA DO BRASIL - Costa brasileira completa
-            // Do Rio Grande do Sul até o Amapá
-            ArrayNode brazilArea = mapper.createArrayNode();
-            brazilArea.add(mapper.createArrayNode().add(-35.0).add(-55.0));  // Sudoeste (RS)
-            brazilArea.add(mapper.createArrayNode().add(5.0).add(-30.0));     // Nordeste (AP)
+        ObjectNode subscription = mapper.createObjectNode();
+        subscription.put("APIKey", apiKey);
 
-            boundingBoxes.add(brazilArea);
-            subscription.set("BoundingBoxes", boundingBoxes);
-            subscription.set("FilterMessageTypes", mapper.createArrayNode().add("PositionReport"));
+        ArrayNode boundingBoxes = mapper.createArrayNode();
 
-            connection.sendTextAndAwait(subscription.toString());
-            System.out.println("✅ Subscrição enviada com sucesso!");
-            System.out.println("🇧🇷 Monitorando: Costa Brasileira (RS até AP)");
-            System.out.println("📍 Área: Lat -35° a 5° | Lon -55° a -30°");
-            System.out.println("⏳ Aguardando dados de navios...");
+        // 🇧🇷 Faixa de latitude deste shard (com um shard só, a costa inteira: RS até AP)
+        ArrayNode shardArea = mapper.createArrayNode();
+        shardArea.add(mapper.createArrayNode().add(box[0][0]).add(box[0][1]));  // Sudoeste
+        shardArea.add(mapper.createArrayNode().add(box[1][0]).add(box[1][1]));  // Nordeste
 
-        } catch (Exception e) {
-            System.err.println("❌ Erro ao enviar subscrição: " + e.getMessage());
-            e.printStackTrace();
-        }
+        boundingBoxes.add(shardArea);
+        subscription.set("BoundingBoxes", boundingBoxes);
+        subscription.set("FilterMessageTypes", mapper.createArrayNode().add("PositionReport"));
+
+        // Chamado no event loop: envio assíncrono
+        connection.sendText(subscription.toString()).subscribe().with(
+                v -> LOG.info(String.format("✅ Subscrição do shard %d enviada: Lat %.1f° a %.1f° | Lon %.1f° a %.1f°",
+                        shard, box[0][0], box[1][0], box[0][1], box[1][1])),
+                failure -> LOG.error("❌ Erro ao enviar subscrição do shard " + shard, failure));
     }
 
-    @OnBinaryMessage
-    void onBinaryMessage(Buffer buffer) {
-        String msg = buffer.toString(StandardCharsets.UTF_8);
+    @OnClose
+    void onClose(WebSocketClientConnection connection) {
+        ShardConnection shard = shards.remove(connection.id());
+        // Sem registro, a conexão fechou antes do subscribe, e ele avisa o supervisor
+        if (shard != null) supervisor.onDisconnected(shard.index);
+    }
 
+    // Roda no event loop da conexão: cada shard decodifica na sua própria thread
+    @OnBinaryMessage
+    @NonBlocking
+    void onBinaryMessage(WebSocketClientConnection connection, Buffer buffer) {
+        messages.increment();
+        ShardConnection shard = shards.get(connection.id());
+        if (shard == null) return;
         try {
-            JsonNode root = mapper.readTree(msg);
-            String messageType = root.path("MessageType").asText();
-
-            if ("PositionReport".equals(messageType)) {
-                JsonNode report = root.path("Message").path("PositionReport");
-                JsonNode meta = root.path("MetaData");
-
-                // Dados básicos
-                String name = meta.path("ShipName").asText("DESCONHECIDO").trim();
-                if (name.isEmpty()) name = "DESCONHECIDO";
-
-                String mmsi = String.valueOf(report.path("UserID").asInt());
-                double lat = report.path("Latitude").asDouble();
-                double lon = report.path("Longitude").asDouble();
-                String flag = meta.path("Flag").asText("🏳️");
-
-                // 🔥 DADOS ADICIONAIS ÚTEIS
-                double speedKnots = report.path("Sog").asDouble(); // Speed Over Ground
-                double speedKmh = speedKnots * 1.852; // Converte para km/h
-
-                int heading = report.path("TrueHeading").asInt(); // Direção
-                String direction = getDirection(heading);
-
-                // Tipo de navio (se disponível)
-                String shipType = getShipType(meta.path("ShipType").asInt());
-
-                // Destino (se disponível)
-                String destination = meta.path("Destination").asText("").trim();
-                if (destination.isEmpty()) destination = "Não informado";
-
-                System.out.println("\n🚢 ========================================");
-                System.out.println("🚢 NAVIO DETECTADO NA COSTA BRASILEIRA!");
-                System.out.println("🚢 Nome: " + name);
-                System.out.println("🚢 Tipo: " + shipType);
-                System.out.println("🚢 Bandeira: " + flag);
-                System.out.println("🚢 MMSI: " + mmsi);
-                System.out.println("📍 Posição: " + String.format("%.4f, %.4f", lat, lon));
-                System.out.println("🎯 Destino: " + destination);
-                System.out.println("⚡ Velocidade: " + String.format("%.1f", speedKmh) + " km/h");
-                System.out.println("🧭 Direção: " + direction);
-                System.out.println("🚢 ========================================\n");
-
-                radarServer.broadcastAlert(name, mmsi, lat, lon, flag, shipType, destination, speedKmh, direction);
-            }
+            // Só decodifica e publica: log, geocodificação e fan-out ficam no consumidor do pipeline
+            PositionReport report = shard.report;
+            long start = System.nanoTime();
+            boolean positionReport = shard.decoder.decode(buffer, report);
+            decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (positionReport && supervisor.accept(report)) pipeline.publish(report);
         } catch (Exception e) {
-            System.err.println("❌ Erro ao processar mensagem: " + e.getMessage());
+            // Frame ruim é contado; o detalhe só em DEBUG para uma rajada não inundar o log
+            decodeErrors.increment();
+            LOG.debug("❌ Erro ao processar mensagem: " + e.getMessage());
         }
     }
 
     @OnTextMessage
     void onTextMessage(String msg) {
-        System.out.println("📝 Mensagem de texto recebida: " + msg);
+        LOG.info("📝 Mensagem de texto recebida: " + msg);
     }
 
-    // Converte código de tipo de navio para descrição
-    private String getShipType(int code) {
-        return switch (code) {
-            case 30, 31, 32, 33, 34, 35, 36, 37, 38, 39 -> "🎣 Pesca";
-            case 40, 41, 42, 43, 44, 45, 46, 47, 48, 49 -> "⛴️ Alta velocidade";
-            case 50 -> "🚤 Piloto";
-            case 51 -> "🔍 Busca e resgate";
-            case 52 -> "⛵ Rebocador";
-            case 53 -> "🚢 Porta-contentores";
-            case 54 -> "🛢️ Petroleiro";
-            case 55 -> "⚓ Militar";
-            case 60, 61, 62, 63, 64, 65, 66, 67, 68, 69 -> "🛳️ Passageiros";
-            case 70, 71, 72, 73, 74, 75, 76, 77, 78, 79 -> "📦 Carga";
-            case 80, 81, 82, 83, 84, 85, 86, 87, 88, 89 -> "🛢️ Tanque";
-            default -> "🚢 Navio";
-        };
+    // Converte código de tipo de navio para descrição (tabela pré-calculada)
+    static String getShipType(int code) {
+        return LookupTables.shipType(code);
     }
 
     // Converte heading (0-359) para direção cardeal
-    private String getDirection(int heading) {
-        if (heading == 511) return "Não disponível";
-        if (heading < 0 || heading > 359) return "Desconhecido";
-
-        String[] directions = {"Norte", "Nordeste", "Leste", "Sudeste", "Sul", "Sudoeste", "Oeste", "Noroeste"};
-        int index = (int) Math.round(((double) heading % 360) / 45) % 8;
-        return directions[index];
+    static String getDirection(int heading) {
+        return LookupTables.direction(heading);
     }
 }
\ No newline at end of file
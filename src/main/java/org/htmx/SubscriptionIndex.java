@@ -0,0 +1,104 @@
+package org.htmx;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Índice das assinaturas do radar por região: dada a posição de um navio, quem pode querer vê-lo.
+// Grade de 1° sobre a mesma área do VesselGrid; cada célula guarda (copy-on-write) os terminais
+// cuja região cruza a célula, então o flush lê sem lock. Assinaturas da costa inteira ficam numa
+// lista à parte, senão estariam em todas as células.
+final class SubscriptionIndex<V> {
+
+    static final double CELL_DEG = 1.0;
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final int rows = (int) Math.ceil((VesselGrid.MAX_LAT - VesselGrid.MIN_LAT) / CELL_DEG);
+    private final int cols = (int) Math.ceil((VesselGrid.MAX_LON - VesselGrid.MIN_LON) / CELL_DEG);
+    // Escrita sob o lock, leitura sem: cada célula precisa de publicação segura (como o coast volatile)
+    private final AtomicReferenceArray<Object[]> cells = new AtomicReferenceArray<>(rows * cols);
+    private volatile Object[] coast = EMPTY;
+
+    SubscriptionIndex() {
+        for (int i = 0; i < cells.length(); i++) cells.set(i, EMPTY);
+    }
+
+    private int row(double lat) {
+        return clamp((int) Math.floor((lat - VesselGrid.MIN_LAT) / CELL_DEG), rows);
+    }
+
+    private int col(double lon) {
+        return clamp((int) Math.floor((lon - VesselGrid.MIN_LON) / CELL_DEG), cols);
+    }
+
+    private static int clamp(int v, int n) {
+        return v < 0 ? 0 : Math.min(v, n - 1);
+    }
+
+    synchronized void add(V viewer, RadarSubscription subscription) {
+        if (subscription.coastWide()) {
+            coast = with(coast, viewer);
+            return;
+        }
+        for (int r = row(subscription.minLat()); r <= row(subscription.maxLat()); r++) {
+            for (int c = col(subscription.minLon()); c <= col(subscription.maxLon()); c++) {
+                cells.set(r * cols + c, with(cells.get(r * cols + c), viewer));
+            }
+        }
+    }
+
+    synchronized void remove(V viewer, RadarSubscription subscription) {
+        if (subscription.coastWide()) {
+            coast = without(coast, viewer);
+            return;
+        }
+        for (int r = row(subscription.minLat()); r <= row(subscription.maxLat()); r++) {
+            for (int c = col(subscription.minLon()); c <= col(subscription.maxLon()); c++) {
+                cells.set(r * cols + c, without(cells.get(r * cols + c), viewer));
+            }
+        }
+    }
+
+    // Cada candidato uma vez: a costa inteira, a célula da posição nova e, se o navio mudou de célula,
+    // a da posição anterior (quem só olhava lá precisa saber que ele saiu)
+    @SuppressWarnings("unchecked")
+    void forEachCandidate(double lat, double lon, double oldLat, double oldLon, Consumer<V> visitor) {
+        for (Object viewer : coast) visitor.accept((V) viewer);
+
+        Object[] current = cells.get(row(lat) * cols + col(lon));
+        for (Object viewer : current) visitor.accept((V) viewer);
+
+        Object[] previous = cells.get(row(oldLat) * cols + col(oldLon));
+        if (previous == current) return;
+        for (Object viewer : previous) {
+            if (!contains(current, viewer)) visitor.accept((V) viewer);
+        }
+    }
+
+    private static Object[] with(Object[] array, Object viewer) {
+        if (contains(array, viewer)) return array;
+        Object[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = viewer;
+        return copy;
+    }
+
+    private static Object[] without(Object[] array, Object viewer) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] != viewer) continue;
+            if (array.length == 1) return EMPTY;
+            Object[] copy = new Object[array.length - 1];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i + 1, copy, i, array.length - i - 1);
+            return copy;
+        }
+        return array;
+    }
+
+    private static boolean contains(Object[] array, Object viewer) {
+        for (Object o : array) {
+            if (o == viewer) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,131 @@
+package org.htmx;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Persistência write-behind do histórico de posições no H2.
+// A ingestão só enfileira (sem bloquear); uma thread própria grava em lotes com batch JDBC
+// e aplica a retenção. As consultas de trajeto rodam na thread de quem chama (worker/HTTP),
+// nunca no caminho do feed ao vivo.
+@ApplicationScoped
+public class TrackHistory {
+
+    private static final Logger LOG = Logger.getLogger(TrackHistory.class);
+
+    @ConfigProperty(name = "history.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "history.queue-capacity", defaultValue = "50000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "history.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "history.flush-interval-ms", defaultValue = "1000")
+    long flushIntervalMs;
+
+    @ConfigProperty(name = "history.retention-hours", defaultValue = "24")
+    int retentionHours;
+
+    @ConfigProperty(name = "history.track-max-points", defaultValue = "500")
+    int trackMaxPoints;
+
+    @Inject
+    IngestLeader leader;
+
+    private BlockingQueue<PositionRecord> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        if (!enabled) return;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "track-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (writer == null) return;
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    // Chamado pelo consumidor da ingestão; se o banco não acompanha, descarta em vez de segurar o feed
+    public void record(PositionReport report) {
+        if (!enabled) return;
+        if (!queue.offer(PositionRecord.of(report, System.currentTimeMillis()))) dropped.increment();
+    }
+
+    // Trajeto de um navio nas últimas N horas, amostrado até history.track-max-points (bloqueante: não chamar no event loop)
+    public List<PositionRecord> track(long mmsi, int hours) {
+        if (!enabled) return List.of();
+        long since = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(hours);
+        return QuarkusTransaction.requiringNew().call(() -> PositionRecord.track(mmsi, since, trackMaxPoints));
+    }
+
+    private void writeLoop() {
+        List<PositionRecord> batch = new ArrayList<>(batchSize);
+        long nextPruneAt = System.nanoTime();
+
+        while (running) {
+            try {
+                PositionRecord first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                    batch.clear();
+                }
+
+                // O banco é compartilhado entre os nós: a retenção fica com quem grava
+                if (System.nanoTime() - nextPruneAt >= 0 && leader.isLeader()) {
+                    prune();
+                    nextPruneAt = System.nanoTime() + TimeUnit.MINUTES.toNanos(10);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOG.error("❌ Erro ao gravar histórico de posições: " + e.getMessage());
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PositionRecord> batch) {
+        QuarkusTransaction.requiringNew().run(() -> PositionRecord.persist(batch));
+        written.add(batch.size());
+    }
+
+    private void prune() {
+        long cutoff = PositionRecord.bucketOf(System.currentTimeMillis()) - retentionHours;
+        long removed = QuarkusTransaction.requiringNew().call(() -> PositionRecord.deleteOlderThan(cutoff));
+        if (removed > 0) LOG.info("🧹 Histórico: " + removed + " posições antigas removidas");
+    }
+
+    public long writtenRecords() { return written.sum(); }
+    public long droppedRecords() { return dropped.sum(); }
+    public int pendingRecords() { return queue == null ? 0 : queue.size(); }
+}
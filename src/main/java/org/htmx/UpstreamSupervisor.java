@@ -0,0 +1,168 @@
+package org.htmx;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.websockets.next.WebSocketConnector;
+import io.vertx.core.Vertx;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.net.URI;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Mantém as conexões com a AISStream: a costa é fatiada em N faixas de latitude, uma conexão por faixa.
+// Cada conexão cai num event loop do Vert.x, então a decodificação escala com os núcleos.
+// Conexão que cai (ou não abre) volta com backoff exponencial e jitter.
+@ApplicationScoped
+public class UpstreamSupervisor {
+
+    private static final Logger LOG = Logger.getLogger(UpstreamSupervisor.class);
+
+    // 🇧🇷 Costa brasileira completa, do Rio Grande do Sul até o Amapá
+    static final double MIN_LAT = -35.0, MAX_LAT = 5.0;
+    static final double MIN_LON = -55.0, MAX_LON = -30.0;
+
+    // Conexão que ficou de pé por mais que isso zera o backoff
+    private static final long STABLE_AFTER_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    @ConfigProperty(name = "aisstream.upstream-uri", defaultValue = "wss://stream.aisstream.io")
+    URI upstreamUri;
+
+    @ConfigProperty(name = "aisstream.shards", defaultValue = "2")
+    int shardCount;
+
+    @ConfigProperty(name = "aisstream.reconnect.initial-delay-ms", defaultValue = "1000")
+    long initialDelayMs;
+
+    @ConfigProperty(name = "aisstream.reconnect.max-delay-ms", defaultValue = "60000")
+    long maxDelayMs;
+
+    @Inject
+    Instance<WebSocketConnector<ShipTrackerClient>> connectors;
+
+    @Inject
+    ShipTrackerClient client;
+
+    @Inject
+    Vertx vertx;
+
+    private final ReportDeduplicator dedup = new ReportDeduplicator();
+    private Shard[] shards = new Shard[0];
+    private volatile boolean stopped;
+
+    static final class Shard {
+        final int index;
+        final double minLat, maxLat;
+        int failures;          // tentativas seguidas sem uma conexão estável (protegido pelo Shard)
+        long connectedAt;
+        // Connector da conexão atual: um por conexão (não se reutiliza), destruído quando ela fecha ou falha
+        // (cada get() cria um bean dependente novo, que só sai com destroy)
+        WebSocketConnector<ShipTrackerClient> connector;
+
+        Shard(int index, double minLat, double maxLat) {
+            this.index = index;
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+        }
+    }
+
+    public void start() {
+        int n = Math.max(1, shardCount);
+        double band = (MAX_LAT - MIN_LAT) / n;
+        shards = new Shard[n];
+        for (int i = 0; i < n; i++) {
+            shards[i] = new Shard(i, MIN_LAT + i * band, i == n - 1 ? MAX_LAT : MIN_LAT + (i + 1) * band);
+        }
+
+        // Navios sem relatório há 1 h saem da tabela de deduplicação
+        vertx.setPeriodic(TimeUnit.MINUTES.toMillis(10),
+                id -> dedup.evictOlderThan(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        LOG.info("🌐 Conectando a " + upstreamUri + " com " + n + " shard(s)");
+        for (Shard shard : shards) connect(shard);
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        stopped = true;
+        for (Shard shard : shards) release(shard);
+    }
+
+    private void connect(Shard shard) {
+        WebSocketConnector<ShipTrackerClient> connector;
+        synchronized (shard) {
+            if (stopped) return;
+            release(shard);
+            // 🔥 IMPORTANTE: baseUri() deve ser chamado ANTES de connect()
+            connector = shard.connector = connectors.get().baseUri(upstreamUri);
+        }
+        connector.connect()
+                .subscribe().with(
+                        connection -> {
+                            synchronized (shard) {
+                                shard.connectedAt = System.currentTimeMillis();
+                            }
+                            LOG.info("✅ Shard " + shard.index + " conectado");
+                            client.subscribe(connection, shard.index);
+                        },
+                        failure -> {
+                            LOG.warn("⚠️ Shard " + shard.index + " não conectou: " + failure.getMessage());
+                            release(shard);
+                            scheduleReconnect(shard);
+                        });
+    }
+
+    // Chamado pelo ShipTrackerClient quando a conexão de um shard fecha
+    void onDisconnected(int index) {
+        if (stopped || index < 0 || index >= shards.length) return;
+        Shard shard = shards[index];
+        synchronized (shard) {
+            if (shard.connectedAt > 0 && System.currentTimeMillis() - shard.connectedAt >= STABLE_AFTER_MILLIS) {
+                shard.failures = 0;
+            }
+            shard.connectedAt = 0;
+            release(shard);
+        }
+        LOG.warn("⚠️ Shard " + index + " desconectado");
+        scheduleReconnect(shard);
+    }
+
+    // Destrói o connector da conexão que fechou ou falhou
+    private void release(Shard shard) {
+        synchronized (shard) {
+            if (shard.connector == null) return;
+            connectors.destroy(shard.connector);
+            shard.connector = null;
+        }
+    }
+
+        // Backoff exponencial com "equal jitter": metade fixa + metade aleatória, para os shards não voltarem juntos
+    private void scheduleReconnect(Shard shard) {
+        if (stopped) return;
+        int attempt;
+        synchronized (shard) {
+            attempt = ++shard.failures;
+        }
+        long cap = Math.min(maxDelayMs, initialDelayMs << Math.min(attempt - 1, 16));
+        long delay = cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+        LOG.info("🔁 Shard " + shard.index + ": nova tentativa " + attempt + " em " + delay + " ms");
+        vertx.setTimer(Math.max(1, delay), id -> connect(shard));
+    }
+
+    // [[minLat, minLon], [maxLat, maxLon]] da faixa, no formato da subscrição da AISStream
+    double[][] boundingBox(int index) {
+        Shard shard = index >= 0 && index < shards.length ? shards[index] : null;
+        if (shard == null) return new double[][]{{MIN_LAT, MIN_LON}, {MAX_LAT, MAX_LON}};
+        return new double[][]{{shard.minLat, MIN_LON}, {shard.maxLat, MAX_LON}};
+    }
+
+    // Com um shard só não há sobreposição, então nem consulta a tabela
+    boolean accept(PositionReport report) {
+        return shards.length <= 1 || dedup.accept(report.mmsi, report.reportedAt);
+    }
+
+    public int shardCount() { return shards.length; }
+}
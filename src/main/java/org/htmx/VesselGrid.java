@@ -0,0 +1,179 @@
+package org.htmx;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Índice espacial em grade uniforme sobre a costa brasileira.
+// Cada célula guarda MMSI + posição dos navios dentro dela; consultas só visitam as células relevantes,
+// então o custo depende da área consultada e não do total de navios rastreados.
+public class VesselGrid {
+
+    public record Candidate(long mmsi, double lat, double lon, double distanceKm) {}
+
+    public interface Visitor { void accept(long mmsi, double lat, double lon); }
+
+    static final double MIN_LAT = -36.0, MAX_LAT = 6.0;
+    static final double MIN_LON = -56.0, MAX_LON = -28.0;
+    static final double CELL_DEG = 0.25;
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEG = EARTH_RADIUS_KM * Math.PI / 180;
+    // Largura mínima de uma célula (na latitude extrema da grade), usada para podar a busca k-NN
+    private static final double MIN_CELL_KM = CELL_DEG * KM_PER_DEG * Math.cos(Math.toRadians(Math.max(-MIN_LAT, MAX_LAT)));
+
+    private final int rows = (int) Math.ceil((MAX_LAT - MIN_LAT) / CELL_DEG);
+    private final int cols = (int) Math.ceil((MAX_LON - MIN_LON) / CELL_DEG);
+    private final Cell[] cells = new Cell[rows * cols];
+
+    public VesselGrid() {
+        for (int i = 0; i < cells.length; i++) cells[i] = new Cell();
+    }
+
+    private int row(double lat) {
+        return clamp((int) ((lat - MIN_LAT) / CELL_DEG), rows);
+    }
+
+    private int col(double lon) {
+        return clamp((int) ((lon - MIN_LON) / CELL_DEG), cols);
+    }
+
+    private static int clamp(int v, int n) {
+        return v < 0 ? 0 : Math.min(v, n - 1);
+    }
+
+    // Posições fora da grade caem na célula da borda; as consultas filtram pela posição real
+    private int cellOf(double lat, double lon) {
+        return row(lat) * cols + col(lon);
+    }
+
+    public void insert(long mmsi, double lat, double lon) {
+        cells[cellOf(lat, lon)].put(mmsi, lat, lon);
+    }
+
+    public void move(long mmsi, double oldLat, double oldLon, double lat, double lon) {
+        int from = cellOf(oldLat, oldLon);
+        int to = cellOf(lat, lon);
+        if (from != to) cells[from].remove(mmsi);
+        cells[to].put(mmsi, lat, lon);
+    }
+
+    public void remove(long mmsi, double lat, double lon) {
+        cells[cellOf(lat, lon)].remove(mmsi);
+    }
+
+    public void inBox(double minLat, double minLon, double maxLat, double maxLon, Visitor visitor) {
+        for (int r = row(minLat); r <= row(maxLat); r++) {
+            for (int c = col(minLon); c <= col(maxLon); c++) {
+                cells[r * cols + c].forEach((mmsi, lat, lon) -> {
+                    if (lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon) visitor.accept(mmsi, lat, lon);
+                });
+            }
+        }
+    }
+
+    // Navios até radiusKm do ponto, do mais próximo para o mais distante
+    public List<Candidate> withinRadius(double lat, double lon, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEG;
+        // Largura em longitude calculada na latitude mais afastada do equador dentro do círculo
+        double widestLat = Math.min(89, Math.max(Math.abs(lat - dLat), Math.abs(lat + dLat)));
+        double dLon = radiusKm / (KM_PER_DEG * Math.cos(Math.toRadians(widestLat)));
+        List<Candidate> result = new ArrayList<>();
+        inBox(lat - dLat, lon - dLon, lat + dLat, lon + dLon, (mmsi, la, lo) -> {
+            double d = distanceKm(lat, lon, la, lo);
+            if (d <= radiusKm) result.add(new Candidate(mmsi, la, lo, d));
+        });
+        result.sort(Comparator.comparingDouble(Candidate::distanceKm));
+        return result;
+    }
+
+    // k vizinhos mais próximos: expande anéis de células até que nenhum anel seguinte possa melhorar o resultado
+    public List<Candidate> nearest(double lat, double lon, int k) {
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distanceKm).reversed());
+        int r0 = row(lat), c0 = col(lon);
+        int maxRing = Math.max(rows, cols);
+        // Fora da grade o ponto foi "preso" à borda e a poda por distância mínima não vale
+        boolean inside = lat >= MIN_LAT && lat <= MAX_LAT && lon >= MIN_LON && lon <= MAX_LON;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (inside && best.size() == k && (ring - 1) * MIN_CELL_KM > best.peek().distanceKm()) break;
+
+            for (int r = r0 - ring; r <= r0 + ring; r++) {
+                if (r < 0 || r >= rows) continue;
+                boolean edgeRow = r == r0 - ring || r == r0 + ring;
+                for (int c = c0 - ring; c <= c0 + ring; c += edgeRow ? 1 : 2 * ring) {
+                    if (c >= 0 && c < cols) {
+                        cells[r * cols + c].forEach((mmsi, la, lo) -> {
+                            double d = distanceKm(lat, lon, la, lo);
+                            if (best.size() < k) {
+                                best.add(new Candidate(mmsi, la, lo, d));
+                            } else if (d < best.peek().distanceKm()) {
+                                best.poll();
+                                best.add(new Candidate(mmsi, la, lo, d));
+                            }
+                        });
+                    }
+                    if (ring == 0) break;
+                }
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Candidate::distanceKm));
+        return result;
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    // Célula: arrays paralelos pequenos, remoção por troca com o último
+    private static final class Cell {
+        private long[] ids = new long[0];
+        private double[] lats = new double[0];
+        private double[] lons = new double[0];
+        private int size;
+
+        synchronized void put(long mmsi, double lat, double lon) {
+            int i = indexOf(mmsi);
+            if (i < 0) {
+                if (size == ids.length) grow();
+                i = size++;
+                ids[i] = mmsi;
+            }
+            lats[i] = lat;
+            lons[i] = lon;
+        }
+
+        synchronized void remove(long mmsi) {
+            int i = indexOf(mmsi);
+            if (i < 0) return;
+            int last = --size;
+            ids[i] = ids[last];
+            lats[i] = lats[last];
+            lons[i] = lons[last];
+        }
+
+        synchronized void forEach(Visitor visitor) {
+            for (int i = 0; i < size; i++) visitor.accept(ids[i], lats[i], lons[i]);
+        }
+
+        private int indexOf(long mmsi) {
+            for (int i = 0; i < size; i++) if (ids[i] == mmsi) return i;
+            return -1;
+        }
+
+        private void grow() {
+            int capacity = Math.max(4, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            lats = Arrays.copyOf(lats, capacity);
+            lons = Arrays.copyOf(lons, capacity);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.htmx;
+
+import io.quarkus.qute.TemplateData;
+import org.htmx.ShipRadarServer.ShipData;
+
+// Resultado de consulta espacial: navio + distância até o ponto consultado
+@TemplateData
+public record VesselHit(ShipData ship, double distanceKm) {
+
+    public String distanceLabel() {
+        return String.format("%.1f km", distanceKm);
+    }
+}
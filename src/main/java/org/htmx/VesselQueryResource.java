@@ -0,0 +1,82 @@
+package org.htmx;
+
+import io.quarkus.qute.Location;
+import io.quarkus.qute.Template;
+import io.quarkus.qute.TemplateInstance;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.List;
+
+// Consultas espaciais sobre os navios rastreados, devolvendo fragmentos HTML para o htmx
+@Path("/api/navios")
+public class VesselQueryResource {
+
+    static final double MAX_RADIUS_KM = 500;
+    static final int MAX_RESULTS = 50;
+
+    @Inject
+    ShipRadarServer radarServer;
+
+    @Inject
+    TrackHistory history;
+
+    @Inject
+    @Location("vessel-list.html")
+    Template vesselList;
+
+    @Inject
+    @Location("vessel-track.html")
+    Template vesselTrack;
+
+    // Ex.: /api/navios/perto?lat=-23.98&lon=-46.30&raio=20
+    @GET
+    @Path("/perto")
+    @Produces(MediaType.TEXT_HTML)
+    public TemplateInstance near(@QueryParam("lat") double lat, @QueryParam("lon") double lon,
+                                 @QueryParam("raio") @DefaultValue("20") double radiusKm) {
+        List<VesselHit> hits = radarServer.findShipsNear(lat, lon, Math.min(radiusKm, MAX_RADIUS_KM));
+        return vesselList.data("hits", hits.subList(0, Math.min(MAX_RESULTS, hits.size())));
+    }
+
+    // Ex.: /api/navios/proximos?lat=-22.89&lon=-43.17&k=5
+    @GET
+    @Path("/proximos")
+    @Produces(MediaType.TEXT_HTML)
+    public TemplateInstance nearest(@QueryParam("lat") double lat, @QueryParam("lon") double lon,
+                                    @QueryParam("k") @DefaultValue("5") int k) {
+        return vesselList.data("hits", radarServer.findNearestShips(lat, lon, Math.max(1, Math.min(k, MAX_RESULTS))));
+    }
+
+    // Ex.: /api/navios/area?minLat=-25&minLon=-48&maxLat=-23&maxLon=-45
+    @GET
+    @Path("/area")
+    @Produces(MediaType.TEXT_HTML)
+    public TemplateInstance area(@QueryParam("minLat") double minLat, @QueryParam("minLon") double minLon,
+                                 @QueryParam("maxLat") double maxLat, @QueryParam("maxLon") double maxLon) {
+        double centerLat = (minLat + maxLat) / 2, centerLon = (minLon + maxLon) / 2;
+        List<VesselHit> hits = radarServer.findShipsInArea(minLat, minLon, maxLat, maxLon).stream()
+                .limit(MAX_RESULTS)
+                .map(ship -> new VesselHit(ship, VesselGrid.distanceKm(centerLat, centerLon, ship.lat, ship.lon)))
+                .toList();
+        return vesselList.data("hits", hits);
+    }
+
+    // Ex.: /api/navios/710012345/rota?horas=6 (consulta bloqueante, roda na worker thread do REST)
+    @GET
+    @Path("/{mmsi}/rota")
+    @Produces(MediaType.TEXT_HTML)
+    public TemplateInstance track(@PathParam("mmsi") long mmsi, @QueryParam("horas") @DefaultValue("6") int hours) {
+        int window = Math.max(1, Math.min(hours, 72));
+        return vesselTrack
+                .data("mmsi", mmsi)
+                .data("hours", window)
+                .data("positions", history.track(mmsi, window));
+    }
+}
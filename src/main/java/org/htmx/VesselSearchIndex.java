@@ -0,0 +1,206 @@
+package org.htmx;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice invertido dos navios rastreados para a busca do chat.
+// Termos: tipo, bandeira, destino e localização (palavra inteira) + prefixos das palavras do nome.
+// Tudo normalizado: minúsculas, sem acento e sem emoji; a bandeira 🇧🇷 vira "br".
+public final class VesselSearchIndex {
+
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final long[] NONE = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Protegidos por "lock": termo → MMSIs, e os termos de cada navio (para desindexar)
+    private final Map<String, LongHashSet> postings = new HashMap<>();
+    private final Map<Long, String[]> documents = new HashMap<>();
+
+    // Indexa (ou reindexa) um navio; só troca as postagens dos termos que mudaram
+    public void put(long mmsi, String name, String shipType, String flag, String destination, String location) {
+        String[] terms = documentTerms(name, shipType, flag, destination, location);
+        lock.writeLock().lock();
+        try {
+            String[] old = documents.put(mmsi, terms);
+            if (old != null) {
+                if (Arrays.equals(old, terms)) return;
+                Set<String> kept = Set.of(terms);
+                for (String term : old) {
+                    if (!kept.contains(term)) removePosting(term, mmsi);
+                }
+            }
+            for (String term : terms) postings.computeIfAbsent(term, t -> new LongHashSet()).add(mmsi);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long mmsi) {
+        lock.writeLock().lock();
+        try {
+            String[] old = documents.remove(mmsi);
+            if (old != null) {
+                for (String term : old) removePosting(term, mmsi);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removePosting(String term, long mmsi) {
+        LongHashSet set = postings.get(term);
+        if (set != null && set.remove(mmsi) && set.isEmpty()) postings.remove(term);
+    }
+
+    // Resultado de uma busca: quantos navios casaram e os MMSIs da faixa pedida, em ordem crescente
+    public record Hits(int total, long[] mmsis) {}
+
+    // Navios que casam com TODAS as palavras da consulta. Só a faixa [offset, offset + limit) da ordem
+    // por MMSI é montada (heap limitado), então a página não custa uma ordenação de todos os resultados.
+    public Hits search(String query, int offset, int limit) {
+        List<String> words = tokens(query);
+        if (words.isEmpty() || limit <= 0) return new Hits(0, NONE);
+
+        lock.readLock().lock();
+        try {
+            LongHashSet[] sets = new LongHashSet[words.size()];
+            int smallest = 0;
+            for (int i = 0; i < sets.length; i++) {
+                sets[i] = postings.get(words.get(i));
+                if (sets[i] == null) return new Hits(0, NONE);
+                if (sets[i].size() < sets[smallest].size()) smallest = i;
+            }
+
+            // Percorre a menor lista, confere nas outras e guarda os "offset + limit" menores MMSIs
+            TopK top = new TopK(Math.min(offset + limit, sets[smallest].size()));
+            int[] total = {0};
+            LongHashSet[] others = others(sets, smallest);
+            sets[smallest].forEach(mmsi -> {
+                for (LongHashSet other : others) {
+                    if (!other.contains(mmsi)) return;
+                }
+                total[0]++;
+                top.offer(mmsi);
+            });
+            return new Hits(total[0], top.range(offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static LongHashSet[] others(LongHashSet[] sets, int skip) {
+        LongHashSet[] others = new LongHashSet[sets.length - 1];
+        for (int i = 0, j = 0; i < sets.length; i++) {
+            if (i != skip) others[j++] = sets[i];
+        }
+        return others;
+    }
+
+    // Os k menores valores vistos, num heap de máximo
+    private static final class TopK {
+        final long[] heap;
+        int size;
+
+        TopK(int k) {
+            heap = new long[Math.max(0, k)];
+        }
+
+        void offer(long value) {
+            if (heap.length == 0) return;
+            if (size < heap.length) {
+                int i = size++;
+                while (i > 0 && heap[(i - 1) / 2] < value) {
+                    heap[i] = heap[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                heap[i] = value;
+            } else if (value < heap[0]) {
+                siftDown(value);
+            }
+        }
+
+        // Troca a raiz (o maior) por "value" e desce
+        private void siftDown(long value) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] > heap[child]) child++;
+                if (heap[child] <= value) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = value;
+        }
+
+        long[] range(int offset, int limit) {
+            long[] sorted = Arrays.copyOf(heap, size);
+            Arrays.sort(sorted);
+            if (offset >= sorted.length) return NONE;
+            return Arrays.copyOfRange(sorted, offset, Math.min(sorted.length, offset + limit));
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String[] documentTerms(String name, String shipType, String flag, String destination, String location) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : tokens(name)) {
+            for (int len = MIN_TERM_LENGTH; len <= word.length(); len++) terms.add(word.substring(0, len));
+        }
+        terms.addAll(tokens(shipType));
+        terms.addAll(tokens(flag));
+        terms.addAll(tokens(destination));
+        terms.addAll(tokens(location));
+        return terms.toArray(new String[0]);
+    }
+
+    // "📦 Carga" → [carga]; "Próximo a São Paulo" → [proximo, sao, paulo]; "🇧🇷" → [br]
+    static List<String> tokens(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isEmpty()) return words;
+
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < decomposed.length(); ) {
+            int cp = decomposed.codePointAt(i);
+            i += Character.charCount(cp);
+
+            // Indicadores regionais (bandeiras) viram as letras do código do país
+            if (cp >= 0x1F1E6 && cp <= 0x1F1FF) {
+                word.append((char) ('a' + cp - 0x1F1E6));
+                continue;
+            }
+            int type = Character.getType(cp);
+            // Acentos separados pelo NFD, seletores de variação e ZWJ dos emojis: somem sem quebrar a palavra
+            if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK || type == Character.FORMAT) continue;
+
+            if (Character.isLetterOrDigit(cp)) {
+                word.appendCodePoint(Character.toLowerCase(cp));
+            } else {
+                addWord(words, word);
+            }
+        }
+        addWord(words, word);
+        return words;
+    }
+
+    private static void addWord(List<String> words, StringBuilder word) {
+        if (word.length() >= MIN_TERM_LENGTH) words.add(word.toString());
+        word.setLength(0);
+    }
+}
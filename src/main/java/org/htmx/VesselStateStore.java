@@ -0,0 +1,204 @@
+package org.htmx;
+
+import io.vertx.core.Vertx;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.htmx.ShipRadarServer.ShipData;
+
+// Estado atual de cada navio rastreado, indexado pelo MMSI (long primitivo).
+// Cada relatório atualiza a entrada existente in-place; navios sem relatório há muito tempo são removidos.
+@ApplicationScoped
+public class VesselStateStore {
+
+    private static final Logger LOG = Logger.getLogger(VesselStateStore.class);
+
+    // Visão de recência: anel com os MMSIs dos últimos relatórios (potência de 2)
+    private static final int RECENT_RING = 1024;
+    private static final int RECENT_MASK = RECENT_RING - 1;
+
+    @ConfigProperty(name = "vessels.stale-after-minutes", defaultValue = "30")
+    long staleAfterMinutes;
+
+    @Inject
+    Vertx vertx;
+
+    @Inject
+    ShipStats stats;
+
+    private final ConcurrentLongMap<ShipData> vessels = new ConcurrentLongMap<>();
+    private final VesselGrid grid = new VesselGrid();
+    private final VesselSearchIndex index = new VesselSearchIndex();
+    private final AtomicLongArray recent = new AtomicLongArray(RECENT_RING);
+    private final AtomicLong recentCursor = new AtomicLong();
+    // Incrementado a cada mudança na tabela (quem guarda derivados usa para saber se estão velhos)
+    private final AtomicLong version = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        vertx.setPeriodic(TimeUnit.MINUTES.toMillis(1), id -> evictStale());
+    }
+
+    public void update(ShipData report) {
+        apply(report, false);
+    }
+
+    // Estado vindo do journal no warm restart: nunca sobrescreve um relatório mais novo que já chegou ao vivo.
+    // O replay roda no startup em paralelo com a ingestão, então a comparação é feita dentro do compute
+    public void restore(ShipData report) {
+        apply(report, true);
+    }
+
+    private void apply(ShipData report, boolean keepNewer) {
+        boolean[] applied = {true};
+        // O índice espacial é atualizado sob o mesmo lock da entrada, então nunca diverge da tabela
+        vessels.compute(report.mmsi, (mmsi, current) -> {
+            if (current == null) {
+                grid.insert(mmsi, report.lat, report.lon);
+                index(report);
+                stats.vesselAdded(report.typeCode);
+                return report.copy();
+            }
+            if (keepNewer && current.lastSeen > report.lastSeen) {
+                applied[0] = false;
+                return current;
+            }
+            grid.move(mmsi, current.lat, current.lon, report.lat, report.lon);
+            if (!sameText(current, report)) index(report);
+            if (current.typeCode != report.typeCode) stats.vesselTypeChanged(current.typeCode, report.typeCode);
+            current.copyFrom(report);
+            return current;
+        });
+        if (!applied[0]) return;
+        recent.set((int) (recentCursor.getAndIncrement() & RECENT_MASK), report.mmsi);
+        version.incrementAndGet();
+    }
+
+    private void index(ShipData ship) {
+        index.put(ship.mmsi, ship.name, ship.shipType, ship.flag, ship.destination, ship.location);
+    }
+
+    // O índice de busca só é tocado quando algum campo de texto mudou (a posição muda sempre, o resto quase nunca)
+    private static boolean sameText(ShipData a, ShipData b) {
+        return Objects.equals(a.name, b.name) && Objects.equals(a.shipType, b.shipType) && Objects.equals(a.flag, b.flag)
+                && Objects.equals(a.destination, b.destination) && Objects.equals(a.location, b.location);
+    }
+
+    public long version() { return version.get(); }
+
+    public ShipData get(long mmsi) {
+        return vessels.read(mmsi, ShipData::copy);
+    }
+
+    public boolean contains(long mmsi) { return vessels.get(mmsi) != null; }
+
+    public int size() { return vessels.size(); }
+
+    // Navios distintos mais recentes, percorrendo o anel de trás para frente
+    public List<ShipData> recent(int limit) {
+        List<ShipData> result = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        long end = recentCursor.get();
+        long start = Math.max(0, end - RECENT_RING);
+
+        for (long c = end - 1; c >= start && result.size() < limit; c--) {
+            long mmsi = recent.get((int) (c & RECENT_MASK));
+            if (!seen.add(mmsi)) continue;
+            ShipData ship = get(mmsi);
+            if (ship != null) result.add(ship);
+        }
+
+        // Poucos navios muito falantes ocuparam o anel inteiro: recorre à tabela completa
+        if (result.size() < limit && start > 0 && result.size() < vessels.size()) {
+            List<ShipData> all = all();
+            return all.subList(0, Math.min(limit, all.size()));
+        }
+        return result;
+    }
+
+    // Cópia de todos os navios rastreados, do mais recente para o mais antigo
+    public List<ShipData> all() {
+        List<ShipData> result = new ArrayList<>(vessels.size());
+        vessels.forEach((mmsi, ship) -> result.add(ship.copy()));
+        result.sort(Comparator.comparingLong((ShipData s) -> s.lastSeen).reversed());
+        return result;
+    }
+
+    // Navios dentro do retângulo, do mais recente para o mais antigo
+    public List<ShipData> withinBox(double minLat, double minLon, double maxLat, double maxLon) {
+        List<Long> found = new ArrayList<>();
+        grid.inBox(minLat, minLon, maxLat, maxLon, (mmsi, lat, lon) -> found.add(mmsi));
+        List<ShipData> ships = new ArrayList<>(found.size());
+        for (long mmsi : found) {
+            ShipData ship = get(mmsi);
+            if (ship != null) ships.add(ship);
+        }
+        ships.sort(Comparator.comparingLong((ShipData s) -> s.lastSeen).reversed());
+        return ships;
+    }
+
+    // Navios até radiusKm do ponto, do mais próximo para o mais distante
+    public List<VesselHit> withinRadius(double lat, double lon, double radiusKm) {
+        return resolve(grid.withinRadius(lat, lon, radiusKm));
+    }
+
+    public List<VesselHit> nearest(double lat, double lon, int k) {
+        return resolve(grid.nearest(lat, lon, k));
+    }
+
+    private List<VesselHit> resolve(List<VesselGrid.Candidate> candidates) {
+        List<VesselHit> hits = new ArrayList<>(candidates.size());
+        for (VesselGrid.Candidate c : candidates) {
+            ShipData ship = get(c.mmsi());
+            if (ship != null) hits.add(new VesselHit(ship, c.distanceKm()));
+        }
+        return hits;
+    }
+
+    // Uma página da busca textual; o total conta todos os navios que casaram
+    public record SearchPage(List<ShipData> ships, int total, int page, int pageCount) {}
+
+    // Busca por termos (todos precisam casar), em páginas de pageSize navios ordenados por MMSI
+    public SearchPage search(String query, int page, int pageSize) {
+        int requested = Math.max(1, page);
+        VesselSearchIndex.Hits hits = index.search(query, (requested - 1) * pageSize, pageSize);
+        int pageCount = Math.max(1, (hits.total() + pageSize - 1) / pageSize);
+        // Página além do fim: mostra a última
+        if (requested > pageCount) return search(query, pageCount, pageSize);
+
+        List<ShipData> ships = new ArrayList<>(hits.mmsis().length);
+        for (long mmsi : hits.mmsis()) {
+            ShipData ship = get(mmsi);
+            if (ship != null) ships.add(ship);
+        }
+        return new SearchPage(ships, hits.total(), requested, pageCount);
+    }
+
+    void evictStale() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(staleAfterMinutes);
+        int removed = vessels.removeIf((mmsi, ship) -> {
+            if (ship.lastSeen >= cutoff) return false;
+            grid.remove(mmsi, ship.lat, ship.lon);
+            index.remove(mmsi);
+            stats.vesselRemoved(ship.typeCode);
+            return true;
+        });
+        if (removed > 0) {
+            version.incrementAndGet();
+            LOG.info("🧹 " + removed + " navios sem sinal removidos do radar");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.htmx;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatRoomsTest {
+
+    private static ChatRooms rooms(int maxRooms) {
+        FanoutService fanout = new FanoutService();
+        fanout.registry = new SimpleMeterRegistry();
+        fanout.queueCapacity = 16;
+        fanout.overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+        ChatRooms rooms = new ChatRooms();
+        rooms.fanout = fanout;
+        rooms.defaultRoom = "geral";
+        rooms.maxRooms = maxRooms;
+        rooms.maxConnections = 10;
+        rooms.historySize = 10;
+        rooms.historyMaxChars = 1_000;
+        return rooms;
+    }
+
+    @Test
+    void emptyRoomsAreRemovedSoNewNamesKeepWorking() {
+        ChatRooms rooms = rooms(4);
+        rooms.defaultRoom();
+
+        for (int i = 0; i < 40; i++) {
+            ChatRoom room = rooms.room("r" + i);
+            assertNotNull(room, "sala r" + i);
+            rooms.release(room);
+            assertTrue(room.isClosed());
+            assertNull(rooms.find("r" + i));
+        }
+
+        assertEquals(1, rooms.rooms().size());
+        assertEquals(1, rooms.fanout.groups().size());
+        assertTrue(rooms.fanout.registry.getMeters().stream()
+                .noneMatch(m -> "chat:r0".equals(m.getId().getTag("group"))));
+    }
+
+    @Test
+    void defaultRoomIsNeverRemoved() {
+        ChatRooms rooms = rooms(4);
+        ChatRoom geral = rooms.defaultRoom();
+
+        rooms.release(geral);
+
+        assertFalse(geral.isClosed());
+        assertSame(geral, rooms.defaultRoom());
+    }
+
+    @Test
+    void limitStillAppliesToRoomsInUse() {
+        ChatRooms rooms = rooms(3);
+        rooms.defaultRoom();
+        ChatRoom a = rooms.room("a");
+        rooms.room("b");
+
+        assertNull(rooms.room("c"));
+
+        rooms.release(a);
+        assertNotNull(rooms.room("c"));
+        assertNull(rooms.room("d"));
+    }
+}
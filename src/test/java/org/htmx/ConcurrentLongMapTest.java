@@ -0,0 +1,50 @@
+package org.htmx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConcurrentLongMapTest {
+
+    @Test
+    void updatesInPlaceAndRemoves() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>(4, 4);
+        map.put(710000001L, "A");
+        map.compute(710000001L, (k, v) -> v + "B");
+
+        assertEquals("AB", map.get(710000001L));
+        assertEquals(1, map.size());
+        assertEquals("AB", map.remove(710000001L));
+        assertNull(map.get(710000001L));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(8, 4);
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = 710_000_000L + random.nextInt(3_000);
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(reference.put(key, (long) i), map.get(key), "put " + key);
+                case 1 -> assertEquals(reference.remove(key), map.remove(key), "remove " + key);
+                default -> assertEquals(reference.get(key), map.get(key), "get " + key);
+            }
+            if (reference.containsKey(key)) map.put(key, reference.get(key));
+        }
+
+        int removed = map.removeIf((key, value) -> key % 2 == 0);
+        int expectedRemoved = (int) reference.keySet().stream().filter(k -> k % 2 == 0).count();
+        reference.keySet().removeIf(k -> k % 2 == 0);
+
+        assertEquals(expectedRemoved, removed);
+        assertEquals(reference.size(), map.size());
+        reference.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+}
@@ -0,0 +1,62 @@
+package org.htmx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryRingTest {
+
+    @Test
+    void keepsOnlyTheNewestMessages() {
+        HistoryRing ring = new HistoryRing(4, 1_000);
+        for (int i = 1; i <= 6; i++) ring.add("<" + i + ">");
+
+        assertEquals("<3><4><5><6>", ring.replay());
+        assertEquals(4, ring.size());
+        assertEquals(12, ring.chars());
+    }
+
+    @Test
+    void capacityIsExactWhenNotAPowerOfTwo() {
+        HistoryRing ring = new HistoryRing(5, 1_000);
+        for (int i = 1; i <= 9; i++) ring.add("<" + i + ">");
+
+        assertEquals("<5><6><7><8><9>", ring.replay());
+        assertEquals(5, ring.size());
+        assertEquals(15, ring.chars());
+    }
+
+    @Test
+    void dropsOldestWhenOverCharacterBudget() {
+        HistoryRing ring = new HistoryRing(16, 10);
+        ring.add("aaaa");
+        ring.add("bbbb");
+        ring.add("cccc");
+
+        assertEquals("bbbbcccc", ring.replay());
+        assertEquals(8, ring.chars());
+
+        // Uma mensagem maior que o limite inteiro ainda fica (sempre guarda a mais nova)
+        ring.add("dddddddddddd");
+        assertEquals("dddddddddddd", ring.replay());
+    }
+
+    @Test
+    void concurrentWritersStayWithinBounds() throws InterruptedException {
+        HistoryRing ring = new HistoryRing(64, 2_000);
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int id = t;
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) ring.add("<m" + id + "-" + i + ">");
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) writer.join();
+
+        assertTrue(ring.size() <= 64);
+        assertTrue(ring.chars() <= 2_000 + 20, "chars=" + ring.chars());
+        assertEquals(ring.chars(), ring.replay().length());
+    }
+}
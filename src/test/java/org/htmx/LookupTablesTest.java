@@ -0,0 +1,29 @@
+package org.htmx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LookupTablesTest {
+
+    @Test
+    void directionRoundsToTheNearestCardinal() {
+        assertEquals("Norte", LookupTables.direction(0));
+        assertEquals("Norte", LookupTables.direction(22));
+        assertEquals("Nordeste", LookupTables.direction(23));
+        assertEquals("Sudoeste", LookupTables.direction(225));
+        assertEquals("Norte", LookupTables.direction(359));
+        assertEquals("Não disponível", LookupTables.direction(511));
+        assertEquals("Desconhecido", LookupTables.direction(360));
+        assertEquals("Desconhecido", LookupTables.direction(-1));
+    }
+
+    @Test
+    void shipTypeOutsideTheAisRangeIsGeneric() {
+        assertEquals("🛢️ Petroleiro", LookupTables.shipType(54));
+        assertEquals("📦 Carga", LookupTables.shipType(79));
+        assertEquals("🚢 Navio", LookupTables.shipType(0));
+        assertEquals("🚢 Navio", LookupTables.shipType(100));
+        assertEquals("🚢 Navio", LookupTables.shipType(-5));
+    }
+}
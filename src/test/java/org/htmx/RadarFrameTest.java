@@ -0,0 +1,84 @@
+package org.htmx;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RadarFrameTest {
+
+    @Test
+    void snapshotIsSplitAndOnlyTheFirstFrameCarriesTheDictionary() {
+        RadarDictionary dictionary = new RadarDictionary();
+        List<RadarFrame.Vessel> vessels = new ArrayList<>();
+        for (int i = 0; i < RadarFrame.MAX_RECORDS_PER_FRAME + 10; i++) {
+            RadarFrame.Vessel vessel = new RadarFrame.Vessel(710_000_000L + i, -23.98412, -46.29871, 12.34, 511, 70,
+                    "NAVIO " + (i % 3), i % 2 == 0 ? "SANTOS" : null, "BR");
+            vessel.intern(dictionary);
+            vessels.add(vessel);
+        }
+
+        List<byte[]> frames = RadarFrame.frames(RadarFrame.RESET | RadarFrame.SNAPSHOT,
+                RadarFrame.entries(dictionary, 0), RadarFrame.records(vessels));
+        assertEquals(2, frames.size());
+
+        ByteBuffer first = ByteBuffer.wrap(frames.get(0));
+        assertEquals(RadarFrame.VERSION, first.get());
+        assertEquals(RadarFrame.RESET | RadarFrame.SNAPSHOT, first.get());
+        int entries = first.getShort() & 0xFFFF;
+        assertEquals(5, entries);   // NAVIO 0, SANTOS, BR, NAVIO 1, NAVIO 2
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            assertEquals(i, first.getShort() & 0xFFFF);
+            byte[] text = new byte[first.get() & 0xFF];
+            first.get(text);
+            texts.add(new String(text, StandardCharsets.UTF_8));
+        }
+        assertEquals(RadarFrame.MAX_RECORDS_PER_FRAME, first.getShort() & 0xFFFF);
+
+        assertEquals(710_000_000, first.getInt());
+        assertEquals(-2398412, first.getInt());
+        assertEquals(-4629871, first.getInt());
+        assertEquals(123, first.getShort() & 0xFFFF);
+        assertEquals(511, first.getShort() & 0xFFFF);
+        assertEquals(70, first.get() & 0xFF);
+        first.get();
+        assertEquals("NAVIO 0", texts.get(first.getShort() & 0xFFFF));
+        assertEquals("SANTOS", texts.get(first.getShort() & 0xFFFF));
+        assertEquals("BR", texts.get(first.getShort() & 0xFFFF));
+
+        // Segundo registro: sem destino
+        first.position(first.position() + RadarFrame.RECORD_BYTES - 4);
+        assertEquals(RadarDictionary.NONE, first.getShort() & 0xFFFF);
+
+        ByteBuffer second = ByteBuffer.wrap(frames.get(1));
+        assertEquals(RadarFrame.VERSION, second.get());
+        assertEquals(0, second.get());
+        assertEquals(0, second.getShort());
+        assertEquals(10, second.getShort());
+        assertEquals(10 * RadarFrame.RECORD_BYTES, second.remaining());
+    }
+
+    @Test
+    void updateCarriesOnlyTheNewDictionaryEntries() {
+        RadarDictionary dictionary = new RadarDictionary();
+        dictionary.id("SANTOS");
+        dictionary.id("BR");
+        RadarFrame.Vessel vessel = new RadarFrame.Vessel(1, 0, 0, 0, 0, 0, "NOVO", "SANTOS", "BR");
+        vessel.intern(dictionary);
+
+        ByteBuffer frame = ByteBuffer.wrap(RadarFrame.frames(0, RadarFrame.entries(dictionary, 2),
+                RadarFrame.records(List.of(vessel))).get(0));
+        frame.position(2);
+        assertEquals(1, frame.getShort());
+        assertEquals(2, frame.getShort());
+        assertEquals(4, frame.get());
+        frame.position(frame.position() + 4);
+        assertEquals(1, frame.getShort());
+        assertEquals(RadarFrame.RECORD_BYTES, frame.remaining());
+    }
+}
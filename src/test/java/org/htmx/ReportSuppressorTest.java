@@ -0,0 +1,75 @@
+package org.htmx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportSuppressorTest {
+
+    private static final long T0 = 1_760_000_000_000L;
+
+    private static ReportSuppressor suppressor() {
+        ReportSuppressor suppressor = new ReportSuppressor();
+        suppressor.enabled = true;
+        suppressor.positionMeters = 50;
+        suppressor.speedKnots = 0.5;
+        suppressor.headingDegrees = 5;
+        suppressor.deadReckoning = true;
+        suppressor.maxIntervalSeconds = 120;
+        return suppressor;
+    }
+
+    private static PositionReport report(double lat, double lon, double sog, int heading, long at) {
+        PositionReport report = new PositionReport();
+        report.mmsi = 710012345L;
+        report.lat = lat;
+        report.lon = lon;
+        report.sog = sog;
+        report.trueHeading = heading;
+        report.shipType = 71;
+        report.shipName = "NAVEGADOR SANTISTA";
+        report.flag = "🇧🇷";
+        report.destination = "SANTOS";
+        report.reportedAt = at;
+        return report;
+    }
+
+    @Test
+    void anchoredShipIsSuppressedUntilHeartbeat() {
+        ReportSuppressor suppressor = suppressor();
+        assertTrue(suppressor.accept(report(-23.98, -46.30, 0, 511, T0), 0));
+        for (int s = 10; s < 120; s += 10) {
+            // Oscilação de GPS de poucos metros
+            assertFalse(suppressor.accept(report(-23.98 + 0.0001, -46.30, 0.1, 511, T0 + s * 1000L), 0));
+        }
+        assertTrue(suppressor.accept(report(-23.98, -46.30, 0, 511, T0 + 120_000), 0), "heartbeat");
+        assertEquals(11, suppressor.suppressedReports());
+    }
+
+    @Test
+    void deadReckoningCoversSteadyCourseButNotATurn() {
+        ReportSuppressor suppressor = suppressor();
+        // 12 nós rumo leste: ~6,17 m/s
+        assertTrue(suppressor.accept(report(-23.0, -45.0, 12, 90, T0), 0));
+        double metersPerDegreeLon = 111_195 * Math.cos(Math.toRadians(-23.0));
+        double lon30s = -45.0 + 12 * 1852.0 / 3600 * 30 / metersPerDegreeLon;
+        assertFalse(suppressor.accept(report(-23.0, lon30s, 12, 90, T0 + 30_000), 0));
+
+        // Guinada de 20°
+        assertTrue(suppressor.accept(report(-23.0, lon30s + 0.0001, 12, 110, T0 + 31_000), 0));
+        // Parou de repente: velocidade mudou
+        assertTrue(suppressor.accept(report(-23.0, lon30s + 0.0001, 2, 110, T0 + 32_000), 0));
+    }
+
+    @Test
+    void textChangesAlwaysPass() {
+        ReportSuppressor suppressor = suppressor();
+        assertTrue(suppressor.accept(report(-23.98, -46.30, 0, 511, T0), 0));
+        PositionReport renamed = report(-23.98, -46.30, 0, 511, T0 + 1000);
+        renamed.destination = "RIO DE JANEIRO";
+        assertTrue(suppressor.accept(renamed, 0));
+        assertEquals(0.0, suppressor.suppressionRatio(), 0.0);
+    }
+}
@@ -0,0 +1,44 @@
+package org.htmx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ReverseGeocoderTest {
+
+    private final ReverseGeocoder geocoder = ReverseGeocoder.load();
+
+    @Test
+    void portApproachWinsOverTheStateStrip() {
+        assertEquals("Aproximação do porto de Santos", geocoder.find(-23.98, -46.30));
+        assertEquals("Aproximação do porto de Salvador", geocoder.find(-12.96, -38.51));
+        assertEquals("Aproximação do porto de Vitória", geocoder.find(-20.32, -40.29));
+        assertEquals("Próximo a São Paulo", geocoder.find(-24.30, -46.00));
+    }
+
+    @Test
+    void longitudeSeparatesCoastFromOffshore() {
+        // Mesma latitude: perto da costa, numa bacia e além da ZEE
+        assertEquals("Próximo a Pernambuco", geocoder.find(-8.30, -34.70));
+        assertEquals("Alto-mar ao largo de Pernambuco", geocoder.find(-8.30, -33.50));
+        assertEquals("Bacia de Campos", geocoder.find(-22.00, -40.00));
+        assertEquals("Próximo ao Rio de Janeiro", geocoder.find(-22.00, -41.20));
+        assertEquals(ReverseGeocoder.OUTSIDE, geocoder.find(-20.00, -35.00));
+    }
+
+    @Test
+    void cachedCellAnswersEveryPointInside() {
+        String first = geocoder.find(-26.5001, -44.0001);
+        assertEquals("Bacia de Santos", first);
+        assertEquals(first, geocoder.find(-26.5002, -44.0002));
+        assertNotEquals(first, geocoder.find(-23.98, -46.30));
+    }
+
+    @Test
+    void invalidOrUncoveredPositionsAreOutside() {
+        assertEquals(ReverseGeocoder.OUTSIDE, geocoder.find(Double.NaN, -46.0));
+        assertEquals(ReverseGeocoder.OUTSIDE, geocoder.find(-40.0, -50.0));
+        assertEquals(ReverseGeocoder.OUTSIDE, geocoder.find(0, 0));
+    }
+}
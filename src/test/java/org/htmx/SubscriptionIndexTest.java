@@ -0,0 +1,76 @@
+package org.htmx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubscriptionIndexTest {
+
+    @Test
+    void candidatesCoverEverySubscriptionThatSeesEitherPosition() {
+        // O índice compara terminais por identidade, então cada um é um objeto próprio
+        SubscriptionIndex<Object> index = new SubscriptionIndex<>();
+        Random random = new Random(11);
+        List<RadarSubscription> subscriptions = new ArrayList<>();
+        List<Object> viewers = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            viewers.add(new Object());
+            double lat = -34 + random.nextDouble() * 38, lon = -54 + random.nextDouble() * 22;
+            double span = 0.1 + random.nextDouble() * 3;
+            RadarSubscription subscription = i % 50 == 0 ? RadarSubscription.COAST
+                    : RadarSubscription.parse(lat + "," + lon + "," + (lat + span) + "," + (lon + span), "all", "");
+            subscriptions.add(subscription);
+            index.add(viewers.get(i), subscription);
+        }
+        // Um terço troca de região, como num SUBSCRIBE novo
+        for (int i = 0; i < 300; i += 3) {
+            index.remove(viewers.get(i), subscriptions.get(i));
+            RadarSubscription subscription = RadarSubscription.parse("santos", "carga", "10");
+            subscriptions.set(i, subscription);
+            index.add(viewers.get(i), subscription);
+        }
+
+        for (int q = 0; q < 2_000; q++) {
+            double lat = -35 + random.nextDouble() * 40, lon = -55 + random.nextDouble() * 25;
+            double oldLat = lat + random.nextGaussian(), oldLon = lon + random.nextGaussian();
+            List<Object> visited = new ArrayList<>();
+            index.forEachCandidate(lat, lon, oldLat, oldLon, visited::add);
+
+            Set<Object> unique = new HashSet<>(visited);
+            assertEquals(unique.size(), visited.size(), "candidato repetido");
+            for (int i = 0; i < subscriptions.size(); i++) {
+                RadarSubscription subscription = subscriptions.get(i);
+                if (subscription.covers(lat, lon) || subscription.covers(oldLat, oldLon)) {
+                    assertTrue(unique.contains(viewers.get(i)), "faltou a assinatura " + i + " em " + lat + ", " + lon);
+                }
+            }
+        }
+    }
+
+    @Test
+    void parsesRegionsTypesAndSpeed() {
+        RadarSubscription santos = RadarSubscription.parse("Santos", "carga,petroleiro", "12.5");
+        assertNotNull(santos);
+        assertTrue(santos.covers(-23.98, -46.30));
+        assertTrue(!santos.covers(-22.89, -43.17));
+        assertEquals(RadarSubscription.CARGO | RadarSubscription.TANKER, santos.categories());
+        assertEquals(12.5, santos.minSpeedKmh(), 0.0);
+
+        assertEquals(RadarSubscription.COAST, RadarSubscription.parse("costa", "all", ""));
+        assertTrue(RadarSubscription.parse(null, null, null).coastWide());
+
+        assertNull(RadarSubscription.parse("atlantida", "all", ""));
+        assertNull(RadarSubscription.parse("santos", "submarino", ""));
+        assertNull(RadarSubscription.parse("santos", "all", "-3"));
+        assertNull(RadarSubscription.parse("<b>1,2,3,4</b>", "all", ""));
+    }
+}
@@ -0,0 +1,66 @@
+package org.htmx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VesselGridTest {
+
+    @Test
+    void radiusAndNearestMatchBruteForce() {
+        VesselGrid grid = new VesselGrid();
+        Random random = new Random(7);
+        double[][] positions = new double[3_000][];
+
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = randomPosition(random);
+            grid.insert(i, positions[i][0], positions[i][1]);
+        }
+        // Metade dos navios se move (muitos trocam de célula)
+        for (int i = 0; i < positions.length; i += 2) {
+            double[] old = positions[i];
+            positions[i] = randomPosition(random);
+            grid.move(i, old[0], old[1], positions[i][0], positions[i][1]);
+        }
+
+        for (int q = 0; q < 100; q++) {
+            double[] point = randomPosition(random);
+            double[] distances = new double[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                distances[i] = VesselGrid.distanceKm(point[0], point[1], positions[i][0], positions[i][1]);
+            }
+            double[] sorted = distances.clone();
+            Arrays.sort(sorted);
+
+            List<VesselGrid.Candidate> nearest = grid.nearest(point[0], point[1], 5);
+            assertEquals(5, nearest.size());
+            for (int j = 0; j < 5; j++) assertEquals(sorted[j], nearest.get(j).distanceKm(), 1e-9);
+
+            double radius = random.nextDouble() * 200;
+            long expected = Arrays.stream(distances).filter(d -> d <= radius).count();
+            assertEquals(expected, grid.withinRadius(point[0], point[1], radius).size());
+        }
+    }
+
+    @Test
+    void removedShipsDisappearFromQueries() {
+        VesselGrid grid = new VesselGrid();
+        grid.insert(710000001L, -23.98, -46.30);
+        grid.insert(710000002L, -23.95, -46.33);
+        grid.remove(710000001L, -23.98, -46.30);
+
+        List<VesselGrid.Candidate> hits = grid.withinRadius(-23.98, -46.30, 20);
+        assertEquals(1, hits.size());
+        assertEquals(710000002L, hits.get(0).mmsi());
+        assertTrue(hits.get(0).distanceKm() < 5);
+    }
+
+    private static double[] randomPosition(Random random) {
+        return new double[]{-35 + random.nextDouble() * 40, -55 + random.nextDouble() * 25};
+    }
+}
@@ -0,0 +1,78 @@
+package org.htmx;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VesselSearchIndexTest {
+
+    private static final String[] TYPES = {"📦 Carga", "🛢️ Tanque", "🎣 Pesca", "🛳️ Passageiros"};
+    private static final String[] LOCATIONS = {"Próximo a Santa Catarina", "Próximo a São Paulo", "Próximo à Bahia"};
+    private static final String[] DESTINATIONS = {"SANTOS", "RIO DE JANEIRO", "Não informado"};
+    private static final String[] FLAGS = {"🇧🇷", "🇵🇦", "🇱🇷"};
+
+    @Test
+    void normalizesAccentsEmojiAndFlags() {
+        assertEquals(List.of("carga"), VesselSearchIndex.tokens("📦 Carga"));
+        assertEquals(List.of("tanque"), VesselSearchIndex.tokens("🛢️ Tanque"));
+        assertEquals(List.of("proximo", "sao", "paulo"), VesselSearchIndex.tokens("Próximo a São Paulo"));
+        assertEquals(List.of("br"), VesselSearchIndex.tokens("🇧🇷"));
+    }
+
+    @Test
+    void pagesMatchBruteForceAfterUpdatesAndRemovals() {
+        VesselSearchIndex index = new VesselSearchIndex();
+        Random random = new Random(3);
+        String[][] docs = new String[5_000][];
+
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = randomDoc(random, "NAVIO " + (char) ('A' + random.nextInt(26)) + " " + i);
+            put(index, i, docs[i]);
+        }
+        // Parte dos navios muda de texto, parte sai do índice
+        for (int i = 0; i < docs.length; i += 3) {
+            docs[i] = randomDoc(random, "SANTISTA " + i);
+            put(index, i, docs[i]);
+        }
+        for (int i = 0; i < docs.length; i += 7) {
+            docs[i] = null;
+            index.remove(i);
+        }
+
+        for (String query : List.of("carga", "carga santos", "santa catarina br", "sant", "navio", "pesca são", "inexistente")) {
+            List<String> words = VesselSearchIndex.tokens(query);
+            List<Long> expected = new ArrayList<>();
+            for (int i = 0; i < docs.length; i++) {
+                if (docs[i] == null) continue;
+                Set<String> terms = new HashSet<>(Arrays.asList(
+                        VesselSearchIndex.documentTerms(docs[i][0], docs[i][1], docs[i][2], docs[i][3], docs[i][4])));
+                if (terms.containsAll(words)) expected.add((long) i);
+            }
+
+            for (int offset : new int[]{0, 5, 40, Math.max(0, expected.size() - 2)}) {
+                VesselSearchIndex.Hits hits = index.search(query, offset, 5);
+                long[] want = expected.subList(Math.min(offset, expected.size()), Math.min(expected.size(), offset + 5))
+                        .stream().mapToLong(Long::longValue).toArray();
+                assertEquals(expected.size(), hits.total(), query);
+                assertArrayEquals(want, hits.mmsis(), query + " offset " + offset);
+            }
+        }
+    }
+
+    private static String[] randomDoc(Random random, String name) {
+        return new String[]{name, TYPES[random.nextInt(TYPES.length)], FLAGS[random.nextInt(FLAGS.length)],
+                DESTINATIONS[random.nextInt(DESTINATIONS.length)], LOCATIONS[random.nextInt(LOCATIONS.length)]};
+    }
+
+    private static void put(VesselSearchIndex index, long mmsi, String[] doc) {
+        index.put(mmsi, doc[0], doc[1], doc[2], doc[3], doc[4]);
+    }
+}